@@ -0,0 +1,78 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql
+
+import org.springframework.dao.DataAccessException
+import pl.pw.cyber.dbaccess.testing.MongoBaseIT
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.RunOperationOnDatabaseAbility
+
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresAccessProperties.ScriptMode.PER_STATEMENT
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresAccessProperties.ScriptMode.TRANSACTIONAL_BATCH
+import static pl.pw.cyber.dbaccess.testing.dsl.builders.ResolvedDatabaseBuilder.aResolvableDatabase
+
+class StatementScriptExecutorIT extends MongoBaseIT implements RunOperationOnDatabaseAbility {
+
+    private static final List<String> FAILING_SCRIPT = [
+            "CREATE ROLE script_check NOLOGIN",
+            "GRANT no_such_role TO script_check"
+    ]
+
+    def setup() {
+        resolvedDatabaseIsRunning(aResolvableDatabase().databaseName("script_db"))
+    }
+
+    def cleanup() {
+        stopDatabases()
+    }
+
+    def "should roll back earlier statements of a transactional batch when a later one fails"() {
+        given:
+            def executor = new StatementScriptExecutor(TRANSACTIONAL_BATCH)
+
+        when:
+            executor.execute(adminJdbc(), FAILING_SCRIPT)
+
+        then:
+            thrown(DataAccessException)
+
+        and:
+            database("script_db") {
+                doesNotHaveRole("script_check")
+            }
+    }
+
+    def "should keep earlier statements when a later one fails in per statement mode"() {
+        given:
+            def executor = new StatementScriptExecutor(PER_STATEMENT)
+
+        when:
+            executor.execute(adminJdbc(), FAILING_SCRIPT)
+
+        then:
+            thrown(DataAccessException)
+
+        and:
+            database("script_db") {
+                hasRole("script_check")
+            }
+    }
+
+    def "should commit every statement of a successful transactional batch"() {
+        given:
+            def executor = new StatementScriptExecutor(TRANSACTIONAL_BATCH)
+
+        when:
+            executor.execute(adminJdbc(), [
+                    "CREATE ROLE script_check NOLOGIN",
+                    "COMMENT ON ROLE script_check IS 'batch'"
+            ])
+
+        then:
+            database("script_db") {
+                hasRole("script_check")
+            }
+    }
+
+    private def adminJdbc() {
+        def db = databaseFor("script_db")
+        return connect(db.username(), db.password(), db.url())
+    }
+}
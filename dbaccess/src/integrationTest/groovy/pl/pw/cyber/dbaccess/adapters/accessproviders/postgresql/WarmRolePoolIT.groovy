@@ -0,0 +1,131 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql
+
+import ch.qos.logback.classic.Level
+import org.springframework.test.context.TestPropertySource
+import pl.pw.cyber.dbaccess.testing.MongoBaseIT
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.AccessRequestAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.AddExampleUserAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.DatabaseSelectAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.ExtractAccessResponseAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.LogCaptureAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.RunOperationOnDatabaseAbility
+
+import java.time.Duration
+
+import static pl.pw.cyber.dbaccess.testing.dsl.assertions.ResponseAssertion.assertThat
+import static pl.pw.cyber.dbaccess.testing.dsl.builders.AccessRequestJsonBuilder.anAccessRequest
+import static pl.pw.cyber.dbaccess.testing.dsl.builders.ResolvedDatabaseBuilder.aResolvableDatabase
+
+// PER_STATEMENT shows that activation stays atomic even when scripts are not run in a transaction.
+@TestPropertySource(properties = [
+        "dbaccess.postgres.warm-pool.enabled=true",
+        "dbaccess.postgres.warm-pool.size=2",
+        "dbaccess.postgres.script-mode=PER_STATEMENT"
+])
+class WarmRolePoolIT extends MongoBaseIT implements
+        AccessRequestAbility,
+        AddExampleUserAbility,
+        RunOperationOnDatabaseAbility,
+        DatabaseSelectAbility,
+        ExtractAccessResponseAbility,
+        LogCaptureAbility {
+
+    def setup() {
+        thereIsUser("user")
+        setupLogCapture("pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresDatabaseAccessProvider")
+    }
+
+    def cleanup() {
+        cleanupLogCapture()
+        stopDatabases()
+    }
+
+    def "should hand out a pooled role once the pool is warm"() {
+        given:
+            resolvedDatabaseIsRunning(aResolvableDatabase().databaseName("warm_db"))
+        and:
+            publicSchemaOfDatabaseHasTable("warm_db") {
+                table("orders") {
+                    withColumn "id SERIAL PRIMARY KEY"
+                    withColumn "amount DECIMAL(10,2)"
+                    withRow amount: 100.50
+                }
+            }
+        and:
+            assertThat(readOnlyAccessTo("warm_db")).isOK()
+            eventually {
+                database("warm_db") {
+                    hasRolesLike("warmro%", 2)
+                }
+            }
+
+        when:
+            def response = readOnlyAccessTo("warm_db")
+
+        then:
+            assertThat(response).isOK()
+        and:
+            var credentials = extractFromResponse(response)
+            logCaptured("Activated pooled role as '${credentials.username()}' in 'warm_db'", Level.INFO)
+        and:
+            selectFromOrders(credentials).size() == 1
+        and:
+            database("warm_db") {
+                hasPasswordExpiringWithin(credentials.username(), Duration.ofMinutes(10))
+            }
+    }
+
+    def "should adopt pooled roles left in the database by a previous run"() {
+        given:
+            resolvedDatabaseIsRunning(aResolvableDatabase().databaseName("adopt_db"))
+        and:
+            publicSchemaOfDatabaseHasTable("adopt_db") {
+                table("orders") {
+                    withColumn "id SERIAL PRIMARY KEY"
+                    withColumn "amount DECIMAL(10,2)"
+                    withRow amount: 100.50
+                }
+            }
+        and:
+            asAdminOf("adopt_db").execute("CREATE ROLE warmroleftover01 WITH NOLOGIN")
+            asAdminOf("adopt_db").execute("GRANT CONNECT ON DATABASE adopt_db TO warmroleftover01")
+            asAdminOf("adopt_db").execute("GRANT USAGE ON SCHEMA public TO warmroleftover01")
+            asAdminOf("adopt_db").execute("GRANT SELECT ON ALL TABLES IN SCHEMA public TO warmroleftover01")
+        and:
+            assertThat(readOnlyAccessTo("adopt_db")).isOK()
+            eventually {
+                database("adopt_db") {
+                    hasRolesLike("warmro%", 2)
+                }
+            }
+
+        when:
+            def response = readOnlyAccessTo("adopt_db")
+
+        then:
+            assertThat(response).isOK()
+        and:
+            var credentials = extractFromResponse(response)
+            logCaptured("Activated pooled role as '${credentials.username()}' in 'adopt_db'", Level.INFO)
+        and:
+            selectFromOrders(credentials).size() == 1
+        and:
+            database("adopt_db") {
+                doesNotHaveRole("warmroleftover01")
+            }
+    }
+
+    private def readOnlyAccessTo(String database) {
+        return accessRequestBy("user") {
+            anAccessRequest()
+                    .withTargetDatabase(database)
+                    .withPermissionLevel("READ_ONLY")
+                    .withDurationMinutes(10)
+        }
+    }
+
+    private def asAdminOf(String database) {
+        def db = databaseFor(database)
+        return connect(db.username(), db.password(), db.url())
+    }
+}
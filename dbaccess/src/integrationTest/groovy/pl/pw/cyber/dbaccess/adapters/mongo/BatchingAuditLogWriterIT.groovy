@@ -0,0 +1,157 @@
+package pl.pw.cyber.dbaccess.adapters.mongo
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.bson.types.ObjectId
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.dao.DataAccessResourceFailureException
+import org.springframework.data.mongodb.core.MongoTemplate
+import org.springframework.data.mongodb.core.query.Query
+import pl.pw.cyber.dbaccess.testing.MongoBaseIT
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+import static org.awaitility.Awaitility.await
+
+class BatchingAuditLogWriterIT extends MongoBaseIT {
+
+    @Autowired
+    private MongoTemplate mongoTemplate
+
+    @TempDir
+    private Path walDirectory
+
+    private final List<BatchingAuditLogWriter> writers = []
+
+    def cleanup() {
+        writers.each { it.close() }
+    }
+
+    def "should insert queued documents once the batch is full"() {
+        given:
+            def writer = writer(3, Duration.ofHours(1))
+
+        when:
+            (1..3).each { writer.write(document("user${it}")) }
+
+        then:
+            await().atMost(Duration.ofSeconds(5)).until { storedUsernames() == ["user1", "user2", "user3"] as Set }
+    }
+
+    def "should insert queued documents once the flush interval elapses"() {
+        given:
+            def writer = writer(100, Duration.ofMillis(50))
+
+        when:
+            writer.write(document("user"))
+
+        then:
+            await().atMost(Duration.ofSeconds(5)).until { storedUsernames() == ["user"] as Set }
+    }
+
+    def "should replay documents that were not flushed before a crash"() {
+        given: "a write-ahead log left behind by a crashed process"
+            def documents = (1..3).collect { document("user${it}").withId(new ObjectId().toHexString()) }
+            def crashed = new AuditWriteAheadLog(walDirectory)
+            documents.each { crashed.append(it) }
+            crashed.close()
+
+        and: "the first document was stored before the crash"
+            mongoTemplate.insert(documents.first())
+
+        when:
+            writer(100, Duration.ofHours(1))
+
+        then:
+            storedUsernames() == ["user1", "user2", "user3"] as Set
+            mongoTemplate.count(new Query(), MongoTemporaryAccessAuditLog) == 3
+    }
+
+    def "should delete write-ahead log segments once their documents are stored"() {
+        given:
+            def writer = writer(1, Duration.ofHours(1))
+
+        when:
+            writer.write(document("user"))
+
+        then:
+            await().atMost(Duration.ofSeconds(5)).until {
+                storedUsernames() == ["user"] as Set && Files.list(walDirectory).count() == 1
+            }
+    }
+
+    def "should insert synchronously once the queue fills up behind a failed batch"() {
+        given:
+            def mongoDown = true
+            def template = Spy(mongoTemplate)
+            template.bulkOps(*_) >> {
+                if (mongoDown) {
+                    throw new DataAccessResourceFailureException("Mongo is down")
+                }
+                callRealMethod()
+            }
+            def meterRegistry = new SimpleMeterRegistry()
+            def writer = writer(100, Duration.ofMillis(50), 2, template, meterRegistry)
+
+        and: "a batch that failed to flush"
+            writer.write(document("user1"))
+            await().atMost(Duration.ofSeconds(5)).until { meterRegistry.counter("audit_write_flush_failed_total").count() > 0 }
+
+        when:
+            (2..4).each { writer.write(document("user${it}")) }
+
+        then:
+            storedUsernames() == ["user4"] as Set
+            meterRegistry.counter("audit_write_queue_full_total").count() == 1
+
+        when:
+            mongoDown = false
+
+        then:
+            await().atMost(Duration.ofSeconds(5)).until { storedUsernames() == ["user1", "user2", "user3", "user4"] as Set }
+    }
+
+    def "should not rotate the write-ahead log while nothing is queued"() {
+        given:
+            writer(100, Duration.ofMillis(20))
+            def segments = Files.list(walDirectory).toList()
+
+        when:
+            Thread.sleep(200)
+
+        then:
+            Files.list(walDirectory).toList() == segments
+    }
+
+    private BatchingAuditLogWriter writer(
+            int batchSize,
+            Duration flushInterval,
+            int queueCapacity = 100,
+            MongoTemplate template = mongoTemplate,
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    ) {
+        def writer = new BatchingAuditLogWriter(
+                template,
+                new AuditWriteAheadLog(walDirectory),
+                queueCapacity,
+                batchSize,
+                flushInterval,
+                meterRegistry
+        )
+        writers << writer
+        return writer
+    }
+
+    private MongoTemporaryAccessAuditLog document(String grantedUsername) {
+        return new MongoTemporaryAccessAuditLog(
+                null, "requester", grantedUsername, "test_db", "READ_ONLY",
+                currentTime(), currentTime().plusSeconds(600), false, null, null, null
+        )
+    }
+
+    private Set<String> storedUsernames() {
+        return mongoTemplate.findAll(MongoTemporaryAccessAuditLog)*.grantedUsername() as Set
+    }
+}
@@ -0,0 +1,100 @@
+package pl.pw.cyber.dbaccess.adapters.mongo
+
+import com.mongodb.client.model.IndexOptions
+import groovy.util.logging.Slf4j
+import com.mongodb.client.model.InsertManyOptions
+import org.bson.Document
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.data.mongodb.core.MongoTemplate
+import pl.pw.cyber.dbaccess.testing.MongoBaseIT
+import spock.lang.IgnoreIf
+
+import static pl.pw.cyber.dbaccess.adapters.mongo.MongoTemporaryAccessAuditLog.COLLECTION
+
+/**
+ * Compares the expiry sweep query on the legacy single-field indexes with the partial compound index.
+ * Opt-in, because seeding takes minutes: {@code DBACCESS_BENCHMARK_DOCUMENTS=2000000 ./gradlew integrationTest}.
+ */
+@Slf4j
+@IgnoreIf({ !env.DBACCESS_BENCHMARK_DOCUMENTS })
+class MongoExpiryIndexBenchmarkIT extends MongoBaseIT {
+
+    private static final int BATCH_SIZE = 10_000
+    private static final int PAGE_SIZE = 500
+    private static final double PENDING_RATIO = 0.02
+
+    @Autowired
+    private MongoTemplate mongoTemplate
+
+    def cleanup() {
+        mongoTemplate.dropCollection(COLLECTION)
+        new MongoAuditLogIndexes(mongoTemplate).ensureIndexes()
+    }
+
+    def "partial compound index should serve the sweep query with less work and a smaller index"() {
+        given:
+            def documents = System.getenv("DBACCESS_BENCHMARK_DOCUMENTS") as int
+            def now = currentTime()
+            seed(documents, now)
+
+        and:
+            def collection = mongoTemplate.getCollection(COLLECTION)
+            collection.createIndex(new Document("expiresAt", 1), new IndexOptions().name("expiresAt"))
+            collection.createIndex(new Document("revoked", 1), new IndexOptions().name("revoked"))
+            mongoTemplate.indexOps(COLLECTION).ensureIndex(MongoAuditLogIndexes.pendingExpiryIndex())
+
+        when:
+            def legacy = explainSweep(now, "expiresAt")
+            def partial = explainSweep(now, MongoAuditLogIndexes.PENDING_EXPIRY_INDEX)
+            def indexSizes = mongoTemplate.db.runCommand(new Document("collStats", COLLECTION)).get("indexSizes") as Document
+
+            log.info("[Benchmark] {} documents, {}% not revoked", documents, (PENDING_RATIO * 100) as int)
+            log.info("[Benchmark] legacy  {expiresAt}      : {} ms, keys {}, docs {}",
+                    legacy.executionTimeMillis, legacy.totalKeysExamined, legacy.totalDocsExamined)
+            log.info("[Benchmark] partial {expiresAt, _id} : {} ms, keys {}, docs {}",
+                    partial.executionTimeMillis, partial.totalKeysExamined, partial.totalDocsExamined)
+            log.info("[Benchmark] index sizes (bytes)      : expiresAt={}, revoked={}, {}={}",
+                    indexSizes.expiresAt, indexSizes.revoked,
+                    MongoAuditLogIndexes.PENDING_EXPIRY_INDEX, indexSizes[MongoAuditLogIndexes.PENDING_EXPIRY_INDEX])
+
+        then:
+            partial.nReturned == legacy.nReturned
+            partial.totalDocsExamined <= legacy.totalDocsExamined
+            (indexSizes[MongoAuditLogIndexes.PENDING_EXPIRY_INDEX] as long) <
+                    (indexSizes.expiresAt as long) + (indexSizes.revoked as long)
+    }
+
+    private void seed(int documents, java.time.Instant now) {
+        def collection = mongoTemplate.getCollection(COLLECTION)
+        def random = new Random(42)
+        def batch = new ArrayList<Document>(BATCH_SIZE)
+        documents.times { i ->
+            def grantedAt = now.minusSeconds(random.nextInt(90 * 24 * 3600))
+            batch << new Document()
+                    .append("requestedByUsername", "user${i % 1000}")
+                    .append("grantedUsername", "granted${i}")
+                    .append("targetDatabase", "db${i % 10}")
+                    .append("permissionLevel", "READ_ONLY")
+                    .append("grantedAt", Date.from(grantedAt))
+                    .append("expiresAt", Date.from(grantedAt.plusSeconds(60 * (1 + random.nextInt(60)))))
+                    .append("revoked", random.nextDouble() >= PENDING_RATIO)
+            if (batch.size() == BATCH_SIZE) {
+                collection.insertMany(batch, new InsertManyOptions().ordered(false))
+                batch.clear()
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch, new InsertManyOptions().ordered(false))
+        }
+    }
+
+    private Document explainSweep(java.time.Instant now, String index) {
+        def find = new Document("find", COLLECTION)
+                .append("filter", new Document("revoked", false).append("expiresAt", new Document('$lt', Date.from(now))))
+                .append("sort", new Document("expiresAt", 1).append("_id", 1))
+                .append("limit", PAGE_SIZE)
+                .append("hint", index)
+        def explain = mongoTemplate.db.runCommand(new Document("explain", find).append("verbosity", "executionStats"))
+        return explain.get("executionStats") as Document
+    }
+}
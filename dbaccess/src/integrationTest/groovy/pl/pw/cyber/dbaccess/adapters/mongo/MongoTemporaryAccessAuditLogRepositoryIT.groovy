@@ -0,0 +1,184 @@
+package pl.pw.cyber.dbaccess.adapters.mongo
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.data.mongodb.core.MongoTemplate
+import pl.pw.cyber.dbaccess.domain.AuditLogCursor
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLogRepository
+import pl.pw.cyber.dbaccess.testing.MongoBaseIT
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.AddAuditLogAbility
+
+import java.time.Instant
+
+import static pl.pw.cyber.dbaccess.testing.dsl.builders.TemporaryAccessAuditLogBuilder.activeAuditLog
+import static pl.pw.cyber.dbaccess.testing.dsl.builders.TemporaryAccessAuditLogBuilder.anExpiredAuditLog
+
+class MongoTemporaryAccessAuditLogRepositoryIT extends MongoBaseIT implements AddAuditLogAbility {
+
+    @Autowired
+    private TemporaryAccessAuditLogRepository repository
+
+    @Autowired
+    private MongoTemplate mongoTemplate
+
+    def "should claim expired entries in expiry order"() {
+        given:
+            (1..5).each { minutesAgo ->
+                thereIs(anExpiredAuditLog()
+                        .withGrantedUsername("user${minutesAgo}")
+                        .withExpiresAt(currentTime().minusSeconds(60 * minutesAgo)))
+            }
+        and:
+            thereIs(activeAuditLog().withGrantedUsername("active"))
+            thereIs(anExpiredAuditLog().withGrantedUsername("revoked").withRevoked(true))
+
+        when:
+            def first = repository.claimExpired(currentTime(), currentTime(), "instance", leaseUntil(), 2)
+            def rest = repository.claimExpired(currentTime(), currentTime(), "instance", leaseUntil(), 10)
+
+        then:
+            first*.grantedUsername() == ["user5", "user4"]
+            rest*.grantedUsername() == ["user3", "user2", "user1"]
+    }
+
+    def "should claim entries with the same expiry time in disjoint pages"() {
+        given:
+            def expiresAt = currentTime().minusSeconds(60)
+            (1..3).each { thereIs(anExpiredAuditLog().withGrantedUsername("user${it}").withExpiresAt(expiresAt)) }
+
+        when:
+            def pages = (1..4).collect { repository.claimExpired(currentTime(), currentTime(), "instance", leaseUntil(), 1) }
+
+        then:
+            pages*.size() == [1, 1, 1, 0]
+            pages.flatten()*.grantedUsername().toSet() == ["user1", "user2", "user3"].toSet()
+    }
+
+    def "should not claim entries leased to another instance until the lease expires"() {
+        given:
+            (1..3).each { thereIs(anExpiredAuditLog().withGrantedUsername("user${it}")) }
+
+        when:
+            def claims = [
+                    repository.claimExpired(currentTime(), currentTime(), "first", leaseUntil(), 2),
+                    repository.claimExpired(currentTime(), currentTime(), "second", leaseUntil(), 2),
+                    repository.claimExpired(currentTime(), currentTime(), "second", leaseUntil(), 2)
+            ]
+
+        then:
+            claims*.size() == [2, 1, 0]
+            claims.flatten()*.id().unique().size() == 3
+
+        and:
+            repository.claimExpired(leaseUntil(), leaseUntil(), "second", leaseUntil().plusSeconds(300), 10).size() == 3
+    }
+
+    def "should check leases against the current time when only older expiries are claimed"() {
+        given:
+            thereIs(anExpiredAuditLog().withGrantedUsername("user").withExpiresAt(currentTime().minusSeconds(3600)))
+            repository.claimExpired(currentTime(), currentTime(), "crashed", leaseUntil(), 10)
+
+        when:
+            def claimed = repository.claimExpired(
+                    leaseUntil().minusSeconds(600), leaseUntil(), "second", leaseUntil().plusSeconds(300), 10
+            )
+
+        then:
+            claimed*.grantedUsername() == ["user"]
+    }
+
+    def "should not claim the same entry twice when claiming concurrently"() {
+        given:
+            (1..50).each { thereIs(anExpiredAuditLog().withGrantedUsername("user${it}")) }
+
+        when:
+            def claimed = Collections.synchronizedList([])
+            (1..5).collect { instance ->
+                Thread.start { claimed.addAll(repository.claimExpired(currentTime(), currentTime(), "instance${instance}", leaseUntil(), 20)) }
+            }*.join()
+
+        then:
+            def ids = claimed*.id()
+            !ids.isEmpty()
+            ids.size() == ids.toSet().size()
+    }
+
+    def "should page through all not revoked entries"() {
+        given:
+            thereIs(anExpiredAuditLog().withGrantedUsername("expired"))
+            thereIs(activeAuditLog().withGrantedUsername("active"))
+            thereIs(anExpiredAuditLog().withGrantedUsername("revoked").withRevoked(true))
+
+        when:
+            def pages = readAllPages { cursor -> repository.findNotRevoked(cursor, 1) }
+
+        then:
+            pages.flatten()*.grantedUsername() == ["expired", "active"]
+    }
+
+    def "should page through expiries of not revoked entries"() {
+        given:
+            thereIs(anExpiredAuditLog().withGrantedUsername("expired"))
+            thereIs(activeAuditLog().withGrantedUsername("active"))
+            thereIs(anExpiredAuditLog().withGrantedUsername("revoked").withRevoked(true))
+
+        when:
+            def pages = readAllPages({ cursor -> repository.findNotRevokedExpiries(cursor, 1) }, { it })
+
+        then:
+            pages.flatten() == repository.findNotRevoked(null, 10).collect { AuditLogCursor.after(it) }
+    }
+
+    def "should mark many entries as revoked in place"() {
+        given:
+            (1..3).each { thereIs(anExpiredAuditLog().withGrantedUsername("user${it}")) }
+            def ids = repository.findNotRevoked(null, 10)
+                    .findAll { it.grantedUsername() != "user3" }*.id()
+
+        when:
+            repository.markRevoked(ids, currentTime())
+
+        then:
+            def documents = mongoTemplate.findAll(MongoTemporaryAccessAuditLog).collectEntries { [it.grantedUsername(), it] }
+            documents.user1.revoked() && documents.user1.revokedAt() == currentTime()
+            documents.user2.revoked() && documents.user2.revokedAt() == currentTime()
+            !documents.user3.revoked() && documents.user3.revokedAt() == null
+
+        and:
+            documents.values().every { it.grantedAt() != null && it.targetDatabase() == "test_db" }
+    }
+
+    def "should keep the original revocation time of an already revoked entry"() {
+        given:
+            thereIs(anExpiredAuditLog().withGrantedUsername("user"))
+            def id = repository.findNotRevoked(null, 1).first().id()
+            def revokedAt = currentTime()
+            repository.markRevoked(id, revokedAt)
+
+        when:
+            repository.markRevoked([id], revokedAt.plusSeconds(60))
+
+        then:
+            mongoTemplate.findById(id, MongoTemporaryAccessAuditLog).revokedAt() == revokedAt
+    }
+
+    private Instant leaseUntil() {
+        return currentTime().plusSeconds(300)
+    }
+
+    private static <T> List<List<T>> readAllPages(
+            Closure<List<T>> fetch,
+            Closure<AuditLogCursor> cursorOf = { TemporaryAccessAuditLog entry -> AuditLogCursor.after(entry) }
+    ) {
+        def pages = []
+        AuditLogCursor cursor = null
+        while (true) {
+            List<T> page = fetch(cursor)
+            if (page.isEmpty()) {
+                return pages
+            }
+            pages << page
+            cursor = cursorOf(page.last())
+        }
+    }
+}
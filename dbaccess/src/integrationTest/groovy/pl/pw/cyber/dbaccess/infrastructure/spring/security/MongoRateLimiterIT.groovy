@@ -0,0 +1,113 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.bson.Document
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.data.mongodb.core.MongoTemplate
+import pl.pw.cyber.dbaccess.testing.MongoBaseIT
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+
+class MongoRateLimiterIT extends MongoBaseIT {
+
+    private static final RateLimitPolicy FIVE_PER_FIVE_MINUTES = RateLimitPolicy.of("default", 5, Duration.ofMinutes(5))
+
+    @Autowired
+    private MongoTemplate mongoTemplate
+
+    private Instant now = Instant.parse("2025-04-07T12:00:00Z")
+    private final Clock clock = Stub(Clock) { millis() >> { now.toEpochMilli() } }
+    private final RateLimiter fallback = Mock()
+
+    def setup() {
+        mongoTemplate.dropCollection(MongoRateLimiter.COLLECTION)
+    }
+
+    def "should share one limit between replicas"() {
+        given:
+            def first = limiter(1)
+            def second = limiter(1)
+
+        when:
+            def granted = (1..6).collect { (it % 2 == 0 ? first : second).tryConsume(key("user"), 1) }
+
+        then:
+            granted == [true, true, true, true, true, false]
+    }
+
+    def "should refill shared bucket over time"() {
+        given:
+            def limiter = limiter(1)
+            (1..5).each { limiter.tryConsume(key("user"), 1) }
+
+        when:
+            now = now + Duration.ofMinutes(1)
+
+        then:
+            limiter.tryConsume(key("user"), 1)
+            !limiter.tryConsume(key("user"), 1)
+    }
+
+    def "should serve prefetched tokens without touching the shared bucket"() {
+        given:
+            def limiter = limiter(3)
+
+        when:
+            limiter.tryConsume(key("user"), 1)
+
+        then: "three tokens left the shared bucket, two of them are kept locally"
+            storedTokens("user") == 2
+
+        when:
+            def granted = (1..2).collect { limiter.tryConsume(key("user"), 1) }
+
+        then:
+            granted == [true, true]
+            storedTokens("user") == 2
+    }
+
+    def "should take no tokens when fewer than requested are available"() {
+        given:
+            def limiter = limiter(1)
+            (1..4).each { limiter.tryConsume(key("user"), 1) }
+
+        expect:
+            !limiter.tryConsume(key("user"), 2)
+            storedTokens("user") == 1
+    }
+
+    def "should keep separate buckets per key"() {
+        given:
+            def limiter = limiter(1)
+            (1..5).each { limiter.tryConsume(key("alice"), 1) }
+
+        expect:
+            !limiter.tryConsume(key("alice"), 1)
+            limiter.tryConsume(key("bob"), 1)
+    }
+
+    private MongoRateLimiter limiter(int prefetch) {
+        return new MongoRateLimiter(mongoTemplate, clock, prefetch, Duration.ofMinutes(1), fallback, new SimpleMeterRegistry())
+    }
+
+    def "should keep separate buckets per policy"() {
+        given:
+            def limiter = limiter(1)
+            def strict = RateLimitPolicy.of("strict", 1, Duration.ofHours(1))
+            limiter.tryConsume(new BucketKey(strict, "user"), 1)
+
+        expect:
+            !limiter.tryConsume(new BucketKey(strict, "user"), 1)
+            limiter.tryConsume(key("user"), 1)
+    }
+
+    private static BucketKey key(String subject) {
+        return new BucketKey(FIVE_PER_FIVE_MINUTES, subject)
+    }
+
+    private double storedTokens(String subject) {
+        return mongoTemplate.findById(MongoRateLimiter.documentId(key(subject)), Document, MongoRateLimiter.COLLECTION).getDouble("tokens")
+    }
+}
@@ -26,6 +26,17 @@ trait MetricAssertionAbility {
         builder.assertNotExposed()
     }
 
+    /**
+     * Counters may be registered up front, so this checks that none of them was incremented.
+     */
+    void metricWasNotIncremented(@DelegatesTo(strategy = Closure.DELEGATE_FIRST, value = MetricAssertionBuilder) Closure<?> config) {
+        def builder = new MetricAssertionBuilder(meterRegistry)
+        config.delegate = builder
+        config.resolveStrategy = Closure.DELEGATE_FIRST
+        config.call()
+        builder.assertNotIncremented()
+    }
+
     static class MetricAssertion {
         private final MeterRegistry registry
         private String metricName
@@ -56,9 +67,11 @@ trait MetricAssertionAbility {
                 meters = meters.tags(requiredTags.collectMany { [it.key, it.value] } as String[])
             }
 
-            def counter = meters.counter()
-            assert counter != null : "Expected metric '${metricName}' not found"
-            assert counter.count() > (expectedMinValue ?: 0) : "Expected value > ${expectedMinValue}, but was ${counter.count()}"
+            // Counters are registered up front for every tag combination, so sum all that match.
+            def counters = meters.counters()
+            assert !counters.isEmpty() : "Expected metric '${metricName}' not found"
+            def count = counters.sum { it.count() } as double
+            assert count > (expectedMinValue ?: 0) : "Expected value > ${expectedMinValue}, but was ${count}"
         }
     }
 
@@ -79,6 +92,17 @@ trait MetricAssertionAbility {
             requiredTags[key] = value
         }
 
+        void assertNotIncremented() {
+            assert metricName != null : "Metric name must be defined"
+
+            def incremented = registry.find(metricName)
+                    .tags(requiredTags.collectMany { [it.key, it.value] } as String[])
+                    .counters()
+                    .findAll { it.count() > 0 }
+
+            assert incremented.isEmpty(): "Expected metric '${metricName}' with tags ${requiredTags} not to be incremented, but found: $incremented"
+        }
+
         void assertNotExposed() {
             assert metricName != null : "Metric name must be defined"
 
@@ -1,16 +1,17 @@
 package pl.pw.cyber.dbaccess.testing.dsl.abilities
 
+import com.github.benmanes.caffeine.cache.Cache
 import io.github.bucket4j.Bucket
 import org.springframework.beans.factory.annotation.Autowired
 
 trait RateLimiterCleanerAbility {
 
     @Autowired
-    private Map<String, Bucket> rateLimitCache
+    private Cache<?, Bucket> rateLimitCache
 
     void clearRateLimiterCache() {
         if (rateLimitCache != null) {
-            rateLimitCache.clear()
+            rateLimitCache.invalidateAll()
         }
     }
 }
@@ -62,6 +62,25 @@ trait RunOperationOnDatabaseAbility implements DatabaseConnectionAbility {
         return count > 0
     }
 
+    int countDatabaseRolesLike(String dbName, String pattern) {
+        def db = databaseFor(dbName)
+        def adminJdbc = connect(db.username(), db.password(), db.url())
+        return adminJdbc.queryForObject(
+                "SELECT COUNT(*) FROM pg_catalog.pg_roles WHERE rolname LIKE ?", Integer.class, pattern
+        )
+    }
+
+    Duration passwordValidity(String dbName, String roleName) {
+        def db = databaseFor(dbName)
+        def adminJdbc = connect(db.username(), db.password(), db.url())
+        def seconds = adminJdbc.queryForObject(
+                "SELECT EXTRACT(EPOCH FROM rolvaliduntil - now()) FROM pg_catalog.pg_roles WHERE rolname = ?",
+                BigDecimal.class,
+                roleName
+        )
+        return seconds == null ? null : Duration.ofMillis((seconds * 1000).longValue())
+    }
+
     boolean hasActiveSessions(String dbName, String roleName) {
         def db = databaseFor(dbName)
         def adminJdbc = connect(db.username(), db.password(), db.url())
@@ -119,6 +138,18 @@ trait RunOperationOnDatabaseAbility implements DatabaseConnectionAbility {
             assert !ability.databaseRoleExists(dbName, roleName) : "Expected role '${roleName}' NOT to exist in database '${dbName}', but it does."
         }
 
+        void hasRolesLike(String pattern, int expectedCount) {
+            def count = ability.countDatabaseRolesLike(dbName, pattern)
+            assert count == expectedCount : "Expected ${expectedCount} roles like '${pattern}' in database '${dbName}', but found ${count}."
+        }
+
+        void hasPasswordExpiringWithin(String roleName, Duration validFor) {
+            def validity = ability.passwordValidity(dbName, roleName)
+            assert validity != null : "Expected password of role '${roleName}' in database '${dbName}' to expire, but it never does."
+            assert validity <= validFor && validity > validFor.minusMinutes(1) :
+                    "Expected password of role '${roleName}' in database '${dbName}' to expire within ${validFor}, but it expires in ${validity}."
+        }
+
         void doesNotHaveActiveSession(String roleName) {
             assert !ability.hasActiveSessions(dbName, roleName) :
                     "Expected no active sessions for role '${roleName}' in database '${dbName}', but some are still active."
@@ -23,6 +23,15 @@ class AuditLogAssertion {
         entryAssertions.call()
     }
 
+    void shouldHaveEntryFor(String grantedUsername, @DelegatesTo(strategy = Closure.DELEGATE_FIRST, value = AuditLogEntryAssertion) Closure entryAssertions) {
+        def entry = repository.findAllDocuments().find { it.grantedUsername() == grantedUsername }
+        assert entry != null : "Expected an audit log entry for user '${grantedUsername}', but found none"
+        def entryAssertion = new AuditLogEntryAssertion(entry, clock)
+        entryAssertions.delegate = entryAssertion
+        entryAssertions.resolveStrategy = Closure.DELEGATE_FIRST
+        entryAssertions.call()
+    }
+
     void shouldHaveNumberOfEntries(int expectedCount) {
         def actualCount = repository.countDocuments()
         assert actualCount == expectedCount : "Expected ${expectedCount} audit log entries, but found ${actualCount}"
@@ -8,16 +8,21 @@ class AccessRequestJsonBuilder {
     String permissionLevel = "READ_ONLY"
     int durationMinutes = 60
     String targetDatabase = "test_db"
+    String padding = null
 
     static AccessRequestJsonBuilder anAccessRequest() {
         return new AccessRequestJsonBuilder()
     }
 
     Map toMap() {
-        return [
+        def map = [
                 permissionLevel: permissionLevel,
                 durationMinutes: durationMinutes,
                 targetDatabase : targetDatabase
         ]
+        if (padding != null) {
+            map.padding = padding
+        }
+        return map
     }
 }
@@ -52,7 +52,6 @@ class AuthorizationIT extends BaseIT implements
         and:
             metricWasExposed {
                 hasName("jwt_user_not_in_allowlist_total")
-                hasTag("subject", "not-existing-user")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -64,7 +64,7 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
                 hasName("access_failed_total")
                 hasTag("database", "test_db")
                 hasTag("permission", "READ_ONLY")
-                hasTag("ttl", "10")
+                hasTag("ttl", "le_15m")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -125,7 +125,6 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
                 hasName("access_success_total")
                 hasTag("database", "test_db")
                 hasTag("permission", "READ_ONLY")
-                hasTag("requestedBy", "user")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -196,7 +195,6 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
                 hasName("access_success_total")
                 hasTag("database", "test_db")
                 hasTag("permission", "READ_WRITE")
-                hasTag("requestedBy", "user")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -263,11 +261,32 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
                 hasName("access_success_total")
                 hasTag("database", "test_db")
                 hasTag("permission", "DELETE")
-                hasTag("requestedBy", "user")
                 hasValueGreaterThan(0.0)
             }
     }
 
+    def "should let the database expire the password with the grant on its own clock"() {
+        given:
+            resolvedDatabaseIsRunning(aResolvableDatabase().databaseName("test_db"))
+
+        when:
+            def response = accessRequestBy("user") {
+                anAccessRequest()
+                        .withTargetDatabase("test_db")
+                        .withPermissionLevel("READ_ONLY")
+                        .withDurationMinutes(10)
+            }
+
+        then:
+            assertThat(response).isOK()
+        and:
+            var credentials = extractFromResponse(response)
+            database("test_db") {
+                hasPasswordExpiringWithin(credentials.username(), Duration.ofMinutes(10))
+                allowsConnectionFor(credentials.username(), credentials.password())
+            }
+    }
+
     def "should do nothing when there are no expired access logs"() {
         given:
             currentTimeIs("2025-05-04T12:00:00Z")
@@ -280,7 +299,7 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
             theAuditLog { shouldBeEmpty() }
 
         and:
-            metricWasNotExposed {
+            metricWasNotIncremented {
                 hasName("revoke_success_total")
             }
     }
@@ -304,7 +323,6 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
             metricWasExposed {
                 hasName("revoke_failed_total")
                 hasTag("database", "nonexistent_db")
-                hasTag("requestedBy", "user")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -330,7 +348,6 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
             metricWasExposed {
                 hasName("revoke_failed_total")
                 hasTag("database", "test_db")
-                hasTag("requestedBy", "user")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -349,7 +366,6 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
             metricWasExposed {
                 hasName("revoke_failed_total")
                 hasTag("database", "test_db")
-                hasTag("requestedBy", "user")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -464,7 +480,6 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
             metricWasExposed {
                 hasName("revoke_success_total")
                 hasTag("database", "revoke_db")
-                hasTag("requestedBy", "user")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -514,7 +529,61 @@ class AccessRequestEndpointIT extends MongoBaseIT implements
             metricWasExposed {
                 hasName("revoke_success_total")
                 hasTag("database", "roleless_db")
-                hasTag("requestedBy", "user")
+                hasValueGreaterThan(0.0)
+            }
+    }
+
+    def "should revoke all expired users of one database in one sweep and report missing ones"() {
+        given:
+            def usernames = ["bulk1g5m9dzq", "bulk2g5m9dzq", "bulk3g5m9dzq"]
+            resolvedDatabaseIsRunning(aResolvableDatabase().databaseName("bulk_db"))
+
+        and:
+            usernames.each { username ->
+                thereIsUserInDatabase("bulk_db") {
+                    withUsername(username)
+                    withPassword("irrelevant")
+                }
+                thereIs(anExpiredInvalidAuditLog()
+                        .withRequestedBy("user")
+                        .withTargetDatabase("bulk_db")
+                        .withGrantedUsername(username)
+                )
+            }
+
+        and:
+            thereIs(anExpiredInvalidAuditLog()
+                    .withRequestedBy("user")
+                    .withTargetDatabase("bulk_db")
+                    .withGrantedUsername("missingg5m9dzq")
+            )
+
+        when:
+            manuallyTriggerScheduler()
+
+        then:
+            usernames.each { username ->
+                database("bulk_db") {
+                    doesNotHaveRole(username)
+                }
+                theAuditLog {
+                    shouldHaveEntryFor(username) {
+                        hasRevokedStatus()
+                    }
+                }
+            }
+
+        and:
+            theAuditLog {
+                shouldHaveEntryFor("missingg5m9dzq") {
+                    hasNotRevokedStatus()
+                }
+            }
+
+        and:
+            metricWasExposed {
+                hasName("revoke_failed_total")
+                hasTag("database", "bulk_db")
                 hasValueGreaterThan(0.0)
             }
     }
@@ -0,0 +1,142 @@
+package pl.pw.cyber.dbaccess.web.accessrequest
+
+import org.springframework.test.context.TestPropertySource
+import pl.pw.cyber.dbaccess.testing.MongoBaseIT
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.AccessRequestAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.AddExampleUserAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.DatabaseSelectAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.ExtractAccessResponseAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.MongoAuditAssertionAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.RunOperationOnDatabaseAbility
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.SchedulingControlAbility
+
+import java.time.Duration
+
+import static pl.pw.cyber.dbaccess.testing.dsl.assertions.ResponseAssertion.assertThat
+import static pl.pw.cyber.dbaccess.testing.dsl.builders.AccessRequestJsonBuilder.anAccessRequest
+import static pl.pw.cyber.dbaccess.testing.dsl.builders.ResolvedDatabaseBuilder.aResolvableDatabase
+
+@TestPropertySource(properties = ["dbaccess.postgres.privilege-model=GROUP_ROLE"])
+class GroupRoleAccessRequestIT extends MongoBaseIT implements
+        AccessRequestAbility,
+        AddExampleUserAbility,
+        RunOperationOnDatabaseAbility,
+        DatabaseSelectAbility,
+        ExtractAccessResponseAbility,
+        MongoAuditAssertionAbility,
+        SchedulingControlAbility {
+
+    def setup() {
+        thereIsUser("user")
+    }
+
+    def cleanup() {
+        stopDatabases()
+    }
+
+    def "should grant access through a group role and revoke it by dropping the temporary role"() {
+        given:
+            currentTimeIs("2025-05-03T14:00:00Z")
+        and:
+            resolvedDatabaseIsRunning(aResolvableDatabase().databaseName("group_db"))
+        and:
+            publicSchemaOfDatabaseHasTable("group_db") {
+                table("orders") {
+                    withColumn "id SERIAL PRIMARY KEY"
+                    withColumn "amount DECIMAL(10,2)"
+                    withRow amount: 100.50
+                    withRow amount: 200.75
+                }
+            }
+
+        when:
+            def response = accessRequestBy("user") {
+                anAccessRequest()
+                        .withTargetDatabase("group_db")
+                        .withPermissionLevel("READ_ONLY")
+                        .withDurationMinutes(1)
+            }
+
+        then:
+            assertThat(response).isOK()
+        and:
+            def credentials = extractFromResponse(response)
+            selectFromOrders(credentials).size() == 2
+        and:
+            insertShouldBeForbiddenFor {
+                table "orders"
+                usingCredentials credentials
+            }
+        and:
+            database("group_db") {
+                hasRole(credentials.username())
+                hasRolesLike("dbaccessro%", 1)
+            }
+
+        when:
+            timeElapsed(Duration.ofMinutes(1).plusSeconds(1))
+        and:
+            manuallyTriggerScheduler()
+
+        then:
+            eventually {
+                database("group_db") {
+                    doesNotHaveRole(credentials.username())
+                    rejectsConnectionFor(credentials.username(), credentials.password())
+                }
+                theAuditLog {
+                    shouldHaveSingleEntry {
+                        hasRevokedStatus()
+                    }
+                }
+            }
+        and:
+            database("group_db") {
+                hasRolesLike("dbaccessro%", 1)
+            }
+    }
+
+    def "should grant tables the administrator created after the group role was prepared"() {
+        given:
+            resolvedDatabaseIsRunning(aResolvableDatabase().databaseName("group_later_db"))
+        and:
+            publicSchemaOfDatabaseHasTable("group_later_db") {
+                table("orders") {
+                    withColumn "id SERIAL PRIMARY KEY"
+                    withColumn "amount DECIMAL(10,2)"
+                    withRow amount: 100.50
+                }
+            }
+        and:
+            assertThat(readOnlyAccessTo("group_later_db")).isOK()
+        and:
+            publicSchemaOfDatabaseHasTable("group_later_db") {
+                table("invoices") {
+                    withColumn "id SERIAL PRIMARY KEY"
+                    withColumn "amount DECIMAL(10,2)"
+                    withRow amount: 300.25
+                }
+            }
+
+        when:
+            def response = readOnlyAccessTo("group_later_db")
+
+        then:
+            assertThat(response).isOK()
+        and:
+            def credentials = extractFromResponse(response)
+            def db = databaseFor("group_later_db")
+            connect(credentials.username(), credentials.password(), db.url())
+                    .queryForList("SELECT * FROM public.invoices")
+                    .size() == 1
+    }
+
+    private def readOnlyAccessTo(String database) {
+        return accessRequestBy("user") {
+            anAccessRequest()
+                    .withTargetDatabase(database)
+                    .withPermissionLevel("READ_ONLY")
+                    .withDurationMinutes(10)
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package pl.pw.cyber.dbaccess.web.accessrequest
 
-
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
 import pl.pw.cyber.dbaccess.testing.MongoBaseIT
 import pl.pw.cyber.dbaccess.testing.dsl.abilities.AccessRequestAbility
 import pl.pw.cyber.dbaccess.testing.dsl.abilities.AddExampleUserAbility
@@ -17,6 +18,9 @@ class RateLimiterIT extends MongoBaseIT
                 MetricAssertionAbility,
                 DatabaseSetupAbility {
 
+    @Autowired
+    MeterRegistry meterRegistry
+
     def setup() {
         resolvedDatabaseIsRunning(aResolvableDatabase().databaseName("test_db"))
     }
@@ -49,9 +53,32 @@ class RateLimiterIT extends MongoBaseIT
         and:
         metricWasExposed {
             hasName("rate_limit_exceeded_total")
-            hasTag("subject", "user")
+            hasTag("policy", "default")
             hasValueGreaterThan(0.0)
         }
+
+        and:
+        meterRegistry.get("cache.size").tag("cache", "rate_limit_buckets").gauge().value() > 0
+    }
+
+    def "should reject a body too large to inspect before it reaches the endpoint"() {
+        given:
+        thereIsUser("user")
+
+        when:
+        def response = accessRequestBy("user") {
+            anAccessRequest()
+                    .withTargetDatabase("test_db")
+                    .withPermissionLevel("DELETE")
+                    .withPadding("x" * 20_000)
+        }
+
+        then:
+        assertThat(response) {
+            hasStatus(413)
+            hasTitle("Payload Too Large")
+            hasType("/errors/payload-too-large")
+        }
     }
 
     def "should not apply rate limiting for Swagger UI"() {
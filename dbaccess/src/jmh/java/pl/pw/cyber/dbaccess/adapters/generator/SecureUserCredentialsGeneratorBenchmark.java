@@ -0,0 +1,30 @@
+package pl.pw.cyber.dbaccess.adapters.generator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import pl.pw.cyber.dbaccess.domain.TemporaryCredentials;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SecureUserCredentialsGeneratorBenchmark {
+
+    private final SecureUserCredentialsGenerator generator = new SecureUserCredentialsGenerator();
+    private final OnePassUserCredentialsGenerator onePassGenerator = new OnePassUserCredentialsGenerator();
+
+    @Benchmark
+    public TemporaryCredentials generate() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    public TemporaryCredentials generateOnePass() {
+        return onePassGenerator.generate();
+    }
+}
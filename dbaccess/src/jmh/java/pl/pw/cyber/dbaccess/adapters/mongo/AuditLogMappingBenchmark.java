@@ -0,0 +1,61 @@
+package pl.pw.cyber.dbaccess.adapters.mongo;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning an audit log entry into a BSON document and back, as done on every grant and sweep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuditLogMappingBenchmark {
+
+    private MappingMongoConverter converter;
+    private TemporaryAccessAuditLog entry;
+    private Document document;
+
+    @Setup
+    public void setUp() {
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+
+        var now = Instant.parse("2025-04-07T12:00:00Z");
+        entry = TemporaryAccessAuditLog.builder()
+          .withId("6630f0c2a1b2c3d4e5f60718")
+          .withRequestedByUsername("alice")
+          .withGrantedUsername("ab3kz9t1qv8d")
+          .withTargetDatabase("test_db")
+          .withPermissionLevel("READ_ONLY")
+          .withGrantedAt(now)
+          .withExpiresAt(now.plusSeconds(600))
+          .withRevoked(false)
+          .build();
+        document = write();
+    }
+
+    @Benchmark
+    public Document write() {
+        var target = new Document();
+        converter.write(MongoTemporaryAccessAuditLogRepository.mapToMongoDocument(entry), target);
+        return target;
+    }
+
+    @Benchmark
+    public TemporaryAccessAuditLog read() {
+        return MongoTemporaryAccessAuditLogRepository.mapToDomain(converter.read(MongoTemporaryAccessAuditLog.class, document));
+    }
+}
@@ -0,0 +1,45 @@
+package pl.pw.cyber.dbaccess.common.result;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the {@link Result} chain used by every access request, on the success and failure paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResultBenchmark {
+
+    private final String value = "test_db";
+    private final IllegalStateException error = new IllegalStateException("failed");
+
+    @Benchmark
+    public String successChain(Blackhole blackhole) {
+        return Result.of(() -> value)
+          .map(String::length)
+          .flatMap(length -> Result.success("db-" + length))
+          .onSuccess(() -> blackhole.consume(value))
+          .onFailure(blackhole::consume)
+          .getOrElse("none");
+    }
+
+    @Benchmark
+    public String failureChain(Blackhole blackhole) {
+        return Result.<String>of(() -> {
+              throw error;
+          })
+          .map(String::length)
+          .flatMap(length -> Result.success("db-" + length))
+          .onSuccess(() -> blackhole.consume(value))
+          .onFailure(blackhole::consume)
+          .getOrElse("none");
+    }
+}
@@ -0,0 +1,94 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import pl.pw.cyber.dbaccess.domain.User;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link JwtAuthFilter} with a token already in the verified token cache,
+ * so the result reflects header handling, user lookup and security context setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtAuthFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private JwtAuthFilter filter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() throws Exception {
+        var generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        var keys = generator.generateKeyPair();
+        var now = Instant.now();
+
+        var claims = new JWTClaimsSet.Builder()
+          .subject("alice")
+          .issuer(JwtTokenVerifier.ISSUER)
+          .audience(JwtTokenVerifier.AUDIENCE)
+          .issueTime(Date.from(now))
+          .expirationTime(Date.from(now.plus(Duration.ofMinutes(5))))
+          .build();
+        var jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.ES256), claims);
+        jwt.sign(new ECDSASigner((ECPrivateKey) keys.getPrivate()));
+        authorizationHeader = "Bearer " + jwt.serialize();
+
+        var meterRegistry = new SimpleMeterRegistry();
+        var verifier = new JwtTokenVerifier(
+          Clock.fixed(now, ZoneOffset.UTC), (ECPublicKey) keys.getPublic(), meterRegistry, 16
+        );
+        filter = new JwtAuthFilter(verifier, username -> Optional.of(new User(username)), meterRegistry);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authenticatedRequest() throws Exception {
+        var request = new MockHttpServletRequest("POST", "/access-request");
+        request.addHeader("Authorization", authorizationHeader);
+        var response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse missingHeader() throws Exception {
+        var request = new MockHttpServletRequest("POST", "/access-request");
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return response;
+    }
+}
@@ -0,0 +1,75 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying a token seen for the first time ({@code cold}) versus a token already in
+ * the verified token cache ({@code warm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtTokenVerifierBenchmark {
+
+    private String token;
+    private JwtTokenVerifier uncached;
+    private JwtTokenVerifier cached;
+
+    @Setup
+    public void setUp() throws Exception {
+        var generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        var keys = generator.generateKeyPair();
+        var now = Instant.now();
+        var clock = Clock.fixed(now, ZoneOffset.UTC);
+
+        var claims = new JWTClaimsSet.Builder()
+          .subject("alice")
+          .issuer(JwtTokenVerifier.ISSUER)
+          .audience(JwtTokenVerifier.AUDIENCE)
+          .issueTime(Date.from(now))
+          .expirationTime(Date.from(now.plus(Duration.ofMinutes(5))))
+          .build();
+        var jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.ES256), claims);
+        jwt.sign(new ECDSASigner((ECPrivateKey) keys.getPrivate()));
+        token = jwt.serialize();
+
+        var publicKey = (ECPublicKey) keys.getPublic();
+        uncached = new JwtTokenVerifier(clock, publicKey, new SimpleMeterRegistry(), 0);
+        cached = new JwtTokenVerifier(clock, publicKey, new SimpleMeterRegistry(), 16);
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public JWTClaimsSet cold() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public JWTClaimsSet warm() {
+        return cached.verify(token);
+    }
+}
@@ -0,0 +1,44 @@
+package pl.pw.cyber.dbaccess.web.accessrequest;
+
+import br.com.fluentvalidator.context.ValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider;
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabase;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccessRequestValidatorBenchmark {
+
+    private final AccessRequestValidator validator = new AccessRequestValidator(new DatabaseConfigurationProvider() {
+        @Override
+        public boolean isResolvable(String databaseName) {
+            return "test_db".equals(databaseName);
+        }
+
+        @Override
+        public ResolvedDatabase resolve(String databaseName) {
+            throw new UnsupportedOperationException();
+        }
+    });
+
+    private final AccessRequestJson valid = new AccessRequestJson("READ_ONLY", 10, "test_db");
+    private final AccessRequestJson invalid = new AccessRequestJson("ADMIN", 120, "unknown_db");
+
+    @Benchmark
+    public ValidationResult validRequest() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public ValidationResult invalidRequest() {
+        return validator.validate(invalid);
+    }
+}
@@ -1,18 +1,36 @@
 package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
 
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import pl.pw.cyber.dbaccess.domain.ResolvedDatabase;
 
-import javax.sql.DataSource;
-
 class DataSourceBuilder {
 
-   static DataSource from(ResolvedDatabase resolvedDatabase) {
-        return new DriverManagerDataSource(
-          resolvedDatabase.url(),
-          resolvedDatabase.username(),
-          resolvedDatabase.password()
-        );
+    static final String POOL_NAME_PREFIX = "dbaccess-";
+
+    static HikariDataSource from(
+      ResolvedDatabase resolvedDatabase,
+      PostgresAccessProperties.Pool pool,
+      MeterRegistry meterRegistry
+    ) {
+        var config = new HikariConfig();
+        config.setPoolName(POOL_NAME_PREFIX + resolvedDatabase.name());
+        config.setJdbcUrl(resolvedDatabase.url());
+        config.setUsername(resolvedDatabase.username());
+        config.setPassword(resolvedDatabase.password());
+        config.setMaximumPoolSize(pool.maximumPoolSize());
+        config.setMinimumIdle(pool.minimumIdle());
+        config.setConnectionTimeout(pool.connectionTimeout().toMillis());
+        config.setValidationTimeout(pool.validationTimeout().toMillis());
+        config.setIdleTimeout(pool.idleTimeout().toMillis());
+        config.setMaxLifetime(pool.maxLifetime().toMillis());
+        config.setKeepaliveTime(pool.keepaliveTime().toMillis());
+        // Do not fail at construction when the target is down - the first borrow reports the error instead.
+        config.setInitializationFailTimeout(-1);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(config);
     }
 
 }
@@ -0,0 +1,130 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabase;
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabasesChanged;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps one bounded connection pool per logical target database.
+ * <p>
+ * Pools are keyed by {@link ResolvedDatabase#name()} and remember the connection details they were
+ * built from. When the configuration provider resolves different details for the same name
+ * (rotated password, moved host), the old pool is drained and a new one is built on the next borrow.
+ * <p>
+ * When the target databases are reloaded at runtime, pools of removed databases are drained and
+ * pools of new or changed ones are warmed up in the background, so the first grant does not pay
+ * for opening the pool.
+ */
+@Slf4j
+class DataSourceRegistry implements AutoCloseable {
+
+    private static final Duration DRAIN_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final PostgresAccessProperties.Pool poolProperties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, PooledDataSource> pools = new ConcurrentHashMap<>();
+    private final ExecutorService maintenance = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("datasource-maintenance-", 0).factory()
+    );
+
+    DataSourceRegistry(PostgresAccessProperties.Pool poolProperties, MeterRegistry meterRegistry) {
+        this.poolProperties = poolProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    DataSource dataSourceFor(ResolvedDatabase resolvedDatabase) {
+        var current = pools.get(resolvedDatabase.name());
+        if (current != null && current.database().equals(resolvedDatabase)) {
+            return current.dataSource();
+        }
+        return pools.compute(resolvedDatabase.name(), (name, existing) -> {
+            if (existing != null && existing.database().equals(resolvedDatabase)) {
+                return existing;
+            }
+            if (existing != null) {
+                log.info("Connection details for database '{}' changed, recreating connection pool", name);
+                drain(name, existing.dataSource());
+            }
+            return new PooledDataSource(
+              resolvedDatabase,
+              DataSourceBuilder.from(resolvedDatabase, poolProperties, meterRegistry)
+            );
+        }).dataSource();
+    }
+
+    @EventListener
+    void onDatabasesChanged(ResolvedDatabasesChanged event) {
+        event.removed().forEach(name -> {
+            var removed = pools.remove(name);
+            if (removed != null) {
+                log.info("Database '{}' was removed, draining its connection pool", name);
+                drain(name, removed.dataSource());
+            }
+        });
+        event.added().forEach(database -> maintenance.execute(() -> warm(database)));
+    }
+
+    void evict(String databaseName) {
+        var removed = pools.remove(databaseName);
+        if (removed != null) {
+            log.info("Closing connection pool for database '{}'", databaseName);
+            removed.dataSource().close();
+        }
+    }
+
+    private void warm(ResolvedDatabase database) {
+        try (var ignored = dataSourceFor(database).getConnection()) {
+            log.info("Connection pool for database '{}' is ready", database.name());
+        } catch (SQLException e) {
+            log.warn("Could not warm up connection pool for database '{}': {}", database.name(), e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the pool right away when nothing is borrowed from it, otherwise in the background once
+     * the borrowed connections are returned. Idle connections are evicted immediately either way.
+     */
+    private void drain(String databaseName, HikariDataSource dataSource) {
+        var pool = dataSource.getHikariPoolMXBean();
+        if (pool == null || pool.getActiveConnections() == 0) {
+            dataSource.close();
+            return;
+        }
+        pool.softEvictConnections();
+        maintenance.execute(() -> {
+            var deadline = System.nanoTime() + poolProperties.drainTimeout().toNanos();
+            try {
+                while (pool.getActiveConnections() > 0 && System.nanoTime() < deadline) {
+                    Thread.sleep(DRAIN_POLL_INTERVAL);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (pool.getActiveConnections() > 0) {
+                log.warn("Closing connection pool for database '{}' with {} connections still in use",
+                  databaseName, pool.getActiveConnections()
+                );
+            }
+            dataSource.close();
+        });
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        pools.keySet().forEach(this::evict);
+    }
+
+    private record PooledDataSource(ResolvedDatabase database, HikariDataSource dataSource) {}
+}
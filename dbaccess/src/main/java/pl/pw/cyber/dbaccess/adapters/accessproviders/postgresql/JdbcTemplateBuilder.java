@@ -1,11 +1,12 @@
 package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
 
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import pl.pw.cyber.dbaccess.domain.ResolvedDatabase;
+
+import javax.sql.DataSource;
 
 class JdbcTemplateBuilder {
 
-   static NamedParameterJdbcTemplate from(ResolvedDatabase resolvedDatabase) {
-        return new NamedParameterJdbcTemplate(DataSourceBuilder.from(resolvedDatabase));
+   static NamedParameterJdbcTemplate from(DataSource dataSource) {
+        return new NamedParameterJdbcTemplate(dataSource);
     }
 }
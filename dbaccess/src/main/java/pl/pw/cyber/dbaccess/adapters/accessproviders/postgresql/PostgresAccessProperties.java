@@ -0,0 +1,74 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the PostgreSQL access provider.
+ *
+ * @param serverSideExpiry whether temporary roles get {@code VALID UNTIL} set to the grant duration, counted
+ *                         on the database clock, so the database rejects their logins even when revocation is late
+ */
+@ConfigurationProperties(prefix = "dbaccess.postgres")
+record PostgresAccessProperties(
+  @DefaultValue Pool pool,
+  @DefaultValue("TRANSACTIONAL_BATCH") ScriptMode scriptMode,
+  @DefaultValue WarmPool warmPool,
+  @DefaultValue("DIRECT") PrivilegeModel privilegeModel,
+  @DefaultValue("true") boolean serverSideExpiry
+) {
+
+    /**
+     * Connection pool settings applied to every target database.
+     * Each target gets its own pool, so {@code maximumPoolSize} is a per-database limit.
+     * A pool of a removed or changed database is closed once its borrowed connections are returned,
+     * or after {@code drainTimeout} at the latest.
+     */
+    record Pool(
+      @DefaultValue("5") int maximumPoolSize,
+      @DefaultValue("0") int minimumIdle,
+      @DefaultValue("5s") Duration connectionTimeout,
+      @DefaultValue("2s") Duration validationTimeout,
+      @DefaultValue("2m") Duration idleTimeout,
+      @DefaultValue("30m") Duration maxLifetime,
+      @DefaultValue("0s") Duration keepaliveTime,
+      @DefaultValue("30s") Duration drainTimeout
+    ) {}
+
+    /**
+     * How grant and revoke statements are sent to the target database.
+     */
+    enum ScriptMode {
+        /**
+         * Every statement is sent and autocommitted on its own. Pooled role activation and bulk revocation
+         * still run in one transaction, since they must not be left half applied.
+         */
+        PER_STATEMENT,
+        /** The whole script is sent as one JDBC batch inside a single transaction on one connection. */
+        TRANSACTIONAL_BATCH
+    }
+
+    /**
+     * Pre-created roles kept ready for grants, see {@link WarmRolePool}.
+     * {@code size} roles are kept per target database and permission level.
+     */
+    record WarmPool(
+      @DefaultValue("false") boolean enabled,
+      @DefaultValue("2") int size
+    ) {}
+
+    /**
+     * Where the privileges of a permission level are granted.
+     */
+    enum PrivilegeModel {
+        /** Every temporary role gets table, sequence and default privileges granted on its own. */
+        DIRECT,
+        /**
+         * Privileges are granted once to a group role per database and permission level; temporary roles join it.
+         * Tables created afterwards by roles other than the administrator are not granted, see {@link RolePrivileges}.
+         */
+        GROUP_ROLE
+    }
+}
@@ -1,96 +1,127 @@
 package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresAccessProperties.PrivilegeModel;
+import pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.ScriptTimers.Script;
 import pl.pw.cyber.dbaccess.common.result.ResultExecutionException.DatabaseUnexpectedError;
 import pl.pw.cyber.dbaccess.domain.CreateTemporaryUserRequest;
 import pl.pw.cyber.dbaccess.domain.DatabaseAccessProvider;
 import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider;
+import pl.pw.cyber.dbaccess.domain.RevocationOutcome;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.RoleStatements.doubleQuote;
+
 @Slf4j
 class PostgresDatabaseAccessProvider implements DatabaseAccessProvider {
     private static final Pattern SAFE_IDENTIFIER = Pattern.compile("^[a-z0-9]{1,63}$");
 
-    private final DatabaseConfigurationProvider databaseConfigurationProvider;
+    private static final String REVOKE_CONTEXT_QUERY = """
+      SELECT CURRENT_USER AS owner,
+             ARRAY(SELECT rolname FROM pg_catalog.pg_roles WHERE pg_has_role(:username, oid, 'member')) AS roles
+      """;
+
+    private static final String BULK_REVOKE_CONTEXT_QUERY = """
+      SELECT CURRENT_USER AS owner,
+             u.rolname AS username,
+             ARRAY(SELECT g.rolname FROM pg_catalog.pg_roles g WHERE pg_has_role(u.oid, g.oid, 'member')) AS roles
+        FROM pg_catalog.pg_roles u
+       WHERE u.rolname IN (:usernames)
+      """;
 
-    PostgresDatabaseAccessProvider(DatabaseConfigurationProvider databaseConfigurationProvider) {
+    private static final String EXISTING_ROLES_QUERY = """
+      SELECT rolname FROM pg_catalog.pg_roles WHERE rolname IN (:usernames)
+      """;
+
+    private final DatabaseConfigurationProvider databaseConfigurationProvider;
+    private final DataSourceRegistry dataSourceRegistry;
+    private final StatementScriptExecutor scriptExecutor;
+    private final RolePrivileges rolePrivileges;
+    private final WarmRolePool warmRolePool;
+    private final boolean serverSideExpiry;
+    private final ScriptTimers scriptTimers;
+
+    /**
+     * @param warmRolePool     pre-created roles to hand out before creating one from scratch, or {@code null} to always create roles
+     * @param serverSideExpiry whether passwords of temporary roles expire with the grant
+     */
+    PostgresDatabaseAccessProvider(
+      DatabaseConfigurationProvider databaseConfigurationProvider,
+      DataSourceRegistry dataSourceRegistry,
+      StatementScriptExecutor scriptExecutor,
+      RolePrivileges rolePrivileges,
+      WarmRolePool warmRolePool,
+      boolean serverSideExpiry,
+      ScriptTimers scriptTimers
+    ) {
         this.databaseConfigurationProvider = databaseConfigurationProvider;
+        this.dataSourceRegistry = dataSourceRegistry;
+        this.scriptExecutor = scriptExecutor;
+        this.rolePrivileges = rolePrivileges;
+        this.warmRolePool = warmRolePool;
+        this.serverSideExpiry = serverSideExpiry;
+        this.scriptTimers = scriptTimers;
     }
 
     @Override
     public void createTemporaryUser(CreateTemporaryUserRequest request) {
-        var resolvedDatabase = databaseConfigurationProvider.resolve(request.targetDatabase());
-        var jdbc = JdbcTemplateBuilder.from(resolvedDatabase);
+        var jdbc = jdbcFor(request.targetDatabase());
+
+        if (warmRolePool != null && activatePooledRole(jdbc, request)) {
+            return;
+        }
 
         try {
-            createUser(jdbc, request);
-            grantPrivileges(jdbc, request);
-            configureDefaultPrivileges(jdbc, request);
+            var script = new ArrayList<>(rolePrivileges.createRoleScript(
+              jdbc.getJdbcTemplate(),
+              RoleStatements.createLoginRole(request.username(), request.password()),
+              request.username(),
+              request.targetDatabase(),
+              request.permissionLevel()
+            ));
+            expirePassword(script, request);
+            execute(Script.CREATE_ROLE, request.targetDatabase(), jdbc.getJdbcTemplate(), script);
         } catch (Exception e) {
             log.error("Error creating temporary user", e);
             throw new DatabaseUnexpectedError(e.getMessage());
         }
     }
 
-    private void createUser(NamedParameterJdbcTemplate jdbc, CreateTemporaryUserRequest request) {
-        var username = "\"" + request.username() + "\"";
-        var password = "'" + request.password().replace("'", "''") + "'";
-
-        var sql = String.format(
-          "CREATE ROLE %s WITH LOGIN PASSWORD %s",
-          username,
-          password
-        );
-
-        jdbc.getJdbcTemplate().execute(sql);
-    }
-
-    private void grantPrivileges(NamedParameterJdbcTemplate jdbc, CreateTemporaryUserRequest request) {
-        var username = "\"" + request.username() + "\"";
-        var database = "\"" + request.targetDatabase() + "\"";
-
-        jdbc.getJdbcTemplate().execute(
-          String.format("GRANT CONNECT ON DATABASE %s TO %s", database, username)
-        );
-
-        jdbc.getJdbcTemplate().execute(
-          String.format("GRANT USAGE ON SCHEMA public TO %s", username)
-        );
-
-        var tablePrivileges = switch (request.permissionLevel()) {
-            case READ_ONLY -> "SELECT";
-            case READ_WRITE -> "SELECT, INSERT, UPDATE";
-            case DELETE -> "SELECT, DELETE";
-        };
-
-        jdbc.getJdbcTemplate().execute(
-          String.format("GRANT %s ON ALL TABLES IN SCHEMA public TO %s", tablePrivileges, username)
-        );
-
-        jdbc.getJdbcTemplate().execute(
-          String.format("GRANT USAGE, SELECT ON ALL SEQUENCES IN SCHEMA public TO %s", username)
-        );
+    private boolean activatePooledRole(NamedParameterJdbcTemplate jdbc, CreateTemporaryUserRequest request) {
+        var pooledRole = warmRolePool.take(request.targetDatabase(), request.permissionLevel());
+        if (pooledRole.isEmpty()) {
+            return false;
+        }
+        try {
+            var script = new ArrayList<>(
+              RoleStatements.activatePooledRole(pooledRole.get(), request.username(), request.password())
+            );
+            expirePassword(script, request);
+            // A rename without the ALTER would leave a NOLOGIN role under the requested name,
+            // and the fallback CREATE ROLE would then fail.
+            executeInTransaction(Script.ACTIVATE_POOLED_ROLE, request.targetDatabase(), jdbc.getJdbcTemplate(), script);
+            log.info("Activated pooled role as '{}' in '{}'", request.username(), request.targetDatabase());
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not activate pooled role in '{}', creating the role from scratch: {}",
+              request.targetDatabase(), e.getMessage()
+            );
+            return false;
+        }
     }
 
-    private void configureDefaultPrivileges(NamedParameterJdbcTemplate jdbc, CreateTemporaryUserRequest request) {
-        var username = doubleQuote(request.username());
-
-        var privileges = switch (request.permissionLevel()) {
-            case READ_ONLY -> "SELECT";
-            case READ_WRITE -> "SELECT, INSERT, UPDATE";
-            case DELETE -> "SELECT, DELETE";
-        };
-
-        var sql = """
-          ALTER DEFAULT PRIVILEGES IN SCHEMA public
-          GRANT %s ON TABLES TO %s
-          """.formatted(privileges, username);
-
-        jdbc.getJdbcTemplate().execute(sql);
+    private void expirePassword(List<String> script, CreateTemporaryUserRequest request) {
+        if (serverSideExpiry) {
+            script.add(RoleStatements.expirePassword(request.username(), request.validFor()));
+        }
     }
 
     @Override
@@ -98,39 +129,154 @@ class PostgresDatabaseAccessProvider implements DatabaseAccessProvider {
         validateIdentifier(username);
 
         try {
-            var db = JdbcTemplateBuilder.from(databaseConfigurationProvider.resolve(targetDatabase));
-            var jdbc = db.getJdbcTemplate();
-
-            var quotedUser = doubleQuote(username);
-            var quotedDb = doubleQuote(targetDatabase);
+            var db = jdbcFor(targetDatabase);
 
-            var currentUser = jdbc.queryForObject("SELECT CURRENT_USER", String.class);
-            validateIdentifier(currentUser);
-
-            var revokeStatements = revokeStatements(currentUser, quotedUser, quotedDb);
-            for (var sql : revokeStatements) {
-                jdbc.execute(sql);
+            if (rolePrivileges.model() == PrivilegeModel.GROUP_ROLE) {
+                execute(Script.REVOKE_ROLE, targetDatabase, db.getJdbcTemplate(), RoleStatements.dropRole(username));
+                log.info("User '{}' dropped from '{}'", username, targetDatabase);
+                return;
             }
 
-            var roles = db.queryForList(
-              "SELECT rolname FROM pg_catalog.pg_roles WHERE pg_has_role(:username, oid, 'member')",
+            var context = db.queryForObject(
+              REVOKE_CONTEXT_QUERY,
               Map.of("username", username),
-              String.class
+              (rs, rowNum) -> new RevokeContext(rs.getString("owner"), (String[]) rs.getArray("roles").getArray())
             );
+            var script = directRevokeScript(context.currentUser(), username, targetDatabase, context.memberOf());
+            execute(Script.REVOKE_ROLE, targetDatabase, db.getJdbcTemplate(), script);
+            log.info("User '{}' revoked and dropped from '{}'", username, targetDatabase);
+        } catch (Exception e) {
+            log.error("Error revoking user '{}' from '{}'", username, targetDatabase, e);
+            throw new DatabaseUnexpectedError("Failed to revoke user: " + e.getMessage());
+        }
+    }
 
-            for (var role : roles) {
-                validateIdentifier(role);
-                if (role.equals(currentUser)) continue;
+    /**
+     * Revokes all users with a single catalog lookup and one script on one connection. When the script fails,
+     * the users are revoked one by one, so one broken role does not fail the whole batch. The script always runs
+     * in one transaction, so a failure leaves every role in place for the one-by-one pass.
+     */
+    @Override
+    public List<RevocationOutcome> revokeTemporaryUsers(String targetDatabase, Collection<String> usernames) {
+        var outcomes = new ArrayList<RevocationOutcome>(usernames.size());
+        var candidates = new ArrayList<String>(usernames.size());
+        for (var username : usernames) {
+            if (SAFE_IDENTIFIER.matcher(username).matches()) {
+                candidates.add(username);
+            } else {
+                log.error("Error revoking user '{}' from '{}': Unsafe identifier: {}", username, targetDatabase, username);
+                outcomes.add(RevocationOutcome.failed(username, "Unsafe identifier: " + username));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return outcomes;
+        }
 
-                jdbc.execute("REVOKE " + doubleQuote(role) + " FROM " + quotedUser);
+        NamedParameterJdbcTemplate db;
+        var script = new ArrayList<String>();
+        var revocable = new HashSet<String>();
+        var rejected = new HashSet<String>();
+        try {
+            db = jdbcFor(targetDatabase);
+            if (rolePrivileges.model() == PrivilegeModel.GROUP_ROLE) {
+                for (var username : db.queryForList(EXISTING_ROLES_QUERY, Map.of("usernames", candidates), String.class)) {
+                    script.addAll(RoleStatements.dropRole(username));
+                    revocable.add(username);
+                }
+            } else {
+                var contexts = db.query(
+                  BULK_REVOKE_CONTEXT_QUERY,
+                  Map.of("usernames", candidates),
+                  (rs, rowNum) -> new UserRevokeContext(
+                    rs.getString("username"),
+                    new RevokeContext(rs.getString("owner"), (String[]) rs.getArray("roles").getArray())
+                  )
+                );
+                for (var user : contexts) {
+                    try {
+                        script.addAll(directRevokeScript(
+                          user.context().currentUser(), user.username(), targetDatabase, user.context().memberOf()
+                        ));
+                        revocable.add(user.username());
+                    } catch (IllegalArgumentException e) {
+                        log.error("Error revoking user '{}' from '{}': {}", user.username(), targetDatabase, e.getMessage());
+                        outcomes.add(RevocationOutcome.failed(user.username(), e.getMessage()));
+                        rejected.add(user.username());
+                    }
+                }
             }
+        } catch (Exception e) {
+            log.error("Error revoking {} users from '{}'", candidates.size(), targetDatabase, e);
+            candidates.forEach(username -> outcomes.add(RevocationOutcome.failed(username, "Failed to revoke user: " + e.getMessage())));
+            return outcomes;
+        }
 
-            jdbc.execute("DROP ROLE IF EXISTS " + quotedUser);
-            log.info("User '{}' revoked and dropped from '{}'", username, targetDatabase);
+        try {
+            if (!script.isEmpty()) {
+                executeInTransaction(Script.BULK_REVOKE, targetDatabase, db.getJdbcTemplate(), script);
+            }
         } catch (Exception e) {
-            log.error("Error revoking user '{}' from '{}'", username, targetDatabase, e);
-            throw new DatabaseUnexpectedError("Failed to revoke user: " + e.getMessage());
+            log.warn("Bulk revocation of {} users in '{}' failed, revoking one by one: {}",
+              revocable.size(), targetDatabase, e.getMessage()
+            );
+            outcomes.addAll(DatabaseAccessProvider.super.revokeTemporaryUsers(targetDatabase, revocable));
+            candidates.stream()
+              .filter(username -> !revocable.contains(username) && !rejected.contains(username))
+              .forEach(username -> outcomes.add(missingRole(username, targetDatabase)));
+            return outcomes;
         }
+
+        for (var username : candidates) {
+            if (revocable.contains(username)) {
+                outcomes.add(RevocationOutcome.revoked(username));
+            } else if (!rejected.contains(username)) {
+                outcomes.add(missingRole(username, targetDatabase));
+            }
+        }
+        log.info("Revoked and dropped {} users from '{}'", revocable.size(), targetDatabase);
+        return outcomes;
+    }
+
+    private static RevocationOutcome missingRole(String username, String targetDatabase) {
+        log.error("Error revoking user '{}' from '{}': role does not exist", username, targetDatabase);
+        return RevocationOutcome.failed(username, "Role does not exist: " + username);
+    }
+
+    private List<String> directRevokeScript(String currentUser, String username, String targetDatabase, String[] memberOf) {
+        validateIdentifier(currentUser);
+        var quotedUser = doubleQuote(username);
+        var script = new ArrayList<>(revokeStatements(currentUser, quotedUser, doubleQuote(targetDatabase)));
+
+        for (var role : memberOf) {
+            validateIdentifier(role);
+            if (role.equals(currentUser)) continue;
+
+            script.add("REVOKE " + doubleQuote(role) + " FROM " + quotedUser);
+        }
+
+        script.add("DROP ROLE IF EXISTS " + quotedUser);
+        return script;
+    }
+
+    /**
+     * Runs a grant or revoke script, timed per script and database. In {@code TRANSACTIONAL_BATCH} mode the
+     * statements of a script share one round trip, so the script is the finest unit that can be timed.
+     */
+    private void execute(Script script, String targetDatabase, JdbcTemplate jdbc, List<String> statements) {
+        scriptTimers.timer(script, targetDatabase).record(() -> scriptExecutor.execute(jdbc, statements));
+    }
+
+    /**
+     * Like {@link #execute}, but in one transaction whatever the script mode, for scripts that must not be
+     * left half done.
+     */
+    private void executeInTransaction(Script script, String targetDatabase, JdbcTemplate jdbc, List<String> statements) {
+        scriptTimers.timer(script, targetDatabase).record(() -> scriptExecutor.executeInTransaction(jdbc, statements));
+    }
+
+    private NamedParameterJdbcTemplate jdbcFor(String targetDatabase) {
+        var resolvedDatabase = databaseConfigurationProvider.resolve(targetDatabase);
+        return JdbcTemplateBuilder.from(dataSourceRegistry.dataSourceFor(resolvedDatabase));
     }
 
     private void validateIdentifier(String name) {
@@ -155,8 +301,8 @@ class PostgresDatabaseAccessProvider implements DatabaseAccessProvider {
         );
     }
 
-    private String doubleQuote(String value) {
-        return "\"" + value + "\"";
-    }
+    private record RevokeContext(String currentUser, String[] memberOf) {}
+
+    private record UserRevokeContext(String username, RevokeContext context) {}
 
 }
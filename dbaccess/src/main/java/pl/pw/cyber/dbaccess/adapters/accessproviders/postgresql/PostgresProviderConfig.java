@@ -1,15 +1,80 @@
 package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import pl.pw.cyber.dbaccess.domain.DatabaseAccessProvider;
 import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
+@EnableConfigurationProperties(PostgresAccessProperties.class)
 class PostgresProviderConfig {
 
     @Bean
-    DatabaseAccessProvider databaseAccessProvider(DatabaseConfigurationProvider databaseConfigurationProvider) {
-        return new PostgresDatabaseAccessProvider(databaseConfigurationProvider);
+    DataSourceRegistry dataSourceRegistry(PostgresAccessProperties properties, MeterRegistry meterRegistry) {
+        return new DataSourceRegistry(properties.pool(), meterRegistry);
+    }
+
+    /**
+     * Script timers share the latency objectives configured for the application's stage timers.
+     */
+    @Bean
+    ScriptTimers scriptTimers(MeterRegistry meterRegistry, Environment environment) {
+        var latencySlos = Binder.get(environment)
+          .bind("dbaccess.metrics.latency-slos", Bindable.listOf(Duration.class))
+          .orElse(List.of());
+        return new ScriptTimers(meterRegistry, latencySlos);
+    }
+
+    @Bean
+    RolePrivileges rolePrivileges(PostgresAccessProperties properties) {
+        return new RolePrivileges(properties.privilegeModel(), new StatementScriptExecutor(properties.scriptMode()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "dbaccess.postgres.warm-pool", name = "enabled", havingValue = "true")
+    WarmRolePool warmRolePool(
+      DatabaseConfigurationProvider databaseConfigurationProvider,
+      DataSourceRegistry dataSourceRegistry,
+      RolePrivileges rolePrivileges,
+      PostgresAccessProperties properties,
+      MeterRegistry meterRegistry
+    ) {
+        var provisioner = new PostgresWarmRoleProvisioner(
+          databaseConfigurationProvider,
+          dataSourceRegistry,
+          new StatementScriptExecutor(properties.scriptMode()),
+          rolePrivileges
+        );
+        return new WarmRolePool(properties.warmPool().size(), provisioner, meterRegistry);
+    }
+
+    @Bean
+    DatabaseAccessProvider databaseAccessProvider(
+      DatabaseConfigurationProvider databaseConfigurationProvider,
+      DataSourceRegistry dataSourceRegistry,
+      RolePrivileges rolePrivileges,
+      PostgresAccessProperties properties,
+      ObjectProvider<WarmRolePool> warmRolePool,
+      ScriptTimers scriptTimers
+    ) {
+        return new PostgresDatabaseAccessProvider(
+          databaseConfigurationProvider,
+          dataSourceRegistry,
+          new StatementScriptExecutor(properties.scriptMode()),
+          rolePrivileges,
+          warmRolePool.getIfAvailable(),
+          properties.serverSideExpiry(),
+          scriptTimers
+        );
     }
 }
@@ -0,0 +1,95 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider;
+import pl.pw.cyber.dbaccess.domain.PermissionLevel;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates pooled roles named after their permission level ({@code warmro}, {@code warmrw}, {@code warmdl})
+ * followed by random characters, and finds pooled roles left in a database by a previous run.
+ * A pooled role belongs to a database when it may connect to it, directly or through its group role.
+ */
+class PostgresWarmRoleProvisioner implements WarmRolePool.Provisioner {
+
+    private static final String ROLE_CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int ROLE_SUFFIX_LENGTH = 12;
+
+    private static final String POOLED_ROLES_QUERY = """
+      SELECT r.rolname
+        FROM pg_catalog.pg_roles r
+       WHERE r.rolname LIKE :prefix
+         AND NOT r.rolcanlogin
+         AND EXISTS (SELECT 1
+                       FROM pg_catalog.pg_database d, aclexplode(d.datacl) a
+                      WHERE d.datname = :database
+                        AND a.privilege_type = 'CONNECT'
+                        AND CASE WHEN a.grantee = 0 THEN false ELSE pg_has_role(r.oid, a.grantee, 'MEMBER') END)
+      """;
+
+    private final DatabaseConfigurationProvider databaseConfigurationProvider;
+    private final DataSourceRegistry dataSourceRegistry;
+    private final StatementScriptExecutor scriptExecutor;
+    private final RolePrivileges rolePrivileges;
+    private final SecureRandom random = new SecureRandom();
+
+    PostgresWarmRoleProvisioner(
+      DatabaseConfigurationProvider databaseConfigurationProvider,
+      DataSourceRegistry dataSourceRegistry,
+      StatementScriptExecutor scriptExecutor,
+      RolePrivileges rolePrivileges
+    ) {
+        this.databaseConfigurationProvider = databaseConfigurationProvider;
+        this.dataSourceRegistry = dataSourceRegistry;
+        this.scriptExecutor = scriptExecutor;
+        this.rolePrivileges = rolePrivileges;
+    }
+
+    @Override
+    public List<String> pooledRoles(String database, PermissionLevel permissionLevel) {
+        return jdbcFor(database).queryForList(
+          POOLED_ROLES_QUERY,
+          Map.of("prefix", prefix(permissionLevel) + "%", "database", database),
+          String.class
+        );
+    }
+
+    @Override
+    public String provision(String database, PermissionLevel permissionLevel) {
+        var role = prefix(permissionLevel) + randomSuffix();
+        var jdbc = jdbcFor(database).getJdbcTemplate();
+        var script = rolePrivileges.createRoleScript(
+          jdbc,
+          RoleStatements.createPooledRole(role),
+          role,
+          database,
+          permissionLevel
+        );
+        scriptExecutor.execute(jdbc, script);
+        return role;
+    }
+
+    private NamedParameterJdbcTemplate jdbcFor(String database) {
+        var resolvedDatabase = databaseConfigurationProvider.resolve(database);
+        return JdbcTemplateBuilder.from(dataSourceRegistry.dataSourceFor(resolvedDatabase));
+    }
+
+    private String randomSuffix() {
+        var suffix = new StringBuilder(ROLE_SUFFIX_LENGTH);
+        for (var i = 0; i < ROLE_SUFFIX_LENGTH; i++) {
+            suffix.append(ROLE_CHARACTERS.charAt(random.nextInt(ROLE_CHARACTERS.length())));
+        }
+        return suffix.toString();
+    }
+
+    private static String prefix(PermissionLevel permissionLevel) {
+        return switch (permissionLevel) {
+            case READ_ONLY -> "warmro";
+            case READ_WRITE -> "warmrw";
+            case DELETE -> "warmdl";
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresAccessProperties.PrivilegeModel;
+import pl.pw.cyber.dbaccess.domain.PermissionLevel;
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabase;
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabasesChanged;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.RoleStatements.doubleQuote;
+
+/**
+ * Builds the script that creates a temporary role with the privileges of a {@link PermissionLevel},
+ * according to the configured {@link PrivilegeModel}.
+ * <p>
+ * In {@link PrivilegeModel#GROUP_ROLE} mode the privileges are held by one NOLOGIN group role per
+ * database and permission level, created on first use, and temporary roles only become its members.
+ * Roles are shared by all databases of a cluster, so group names carry a hash of the database name
+ * and a group never grants access to another database.
+ * <p>
+ * A group is prepared once per process: it gets the privileges on the tables and sequences that exist at
+ * that moment, plus default privileges on tables the connected administrator creates later. Tables created
+ * later by other roles reach the group only when it is prepared again, after a restart or once the
+ * database was removed or its connection details changed.
+ */
+@Slf4j
+class RolePrivileges {
+
+    private static final String GROUP_PREFIX = "dbaccess";
+
+    private final PrivilegeModel model;
+    private final StatementScriptExecutor scriptExecutor;
+    private final Set<Group> preparedGroups = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Group, Object> groupLocks = new ConcurrentHashMap<>();
+
+    RolePrivileges(PrivilegeModel model, StatementScriptExecutor scriptExecutor) {
+        this.model = model;
+        this.scriptExecutor = scriptExecutor;
+    }
+
+    PrivilegeModel model() {
+        return model;
+    }
+
+    /**
+     * @param createRole {@code CREATE ROLE} statement for {@code role}, without role membership clauses
+     */
+    List<String> createRoleScript(
+      JdbcTemplate jdbc,
+      String createRole,
+      String role,
+      String database,
+      PermissionLevel permissionLevel
+    ) {
+        return switch (model) {
+            case DIRECT -> {
+                var script = new ArrayList<String>();
+                script.add(createRole);
+                script.addAll(RoleStatements.grantPrivileges(role, database, permissionLevel));
+                script.add(RoleStatements.configureDefaultPrivileges(role, permissionLevel));
+                yield script;
+            }
+            case GROUP_ROLE -> List.of(createRole + " IN ROLE " + doubleQuote(prepareGroup(jdbc, database, permissionLevel)));
+        };
+    }
+
+    /**
+     * Forgets the groups of removed or changed databases, so they are prepared again on their next grant.
+     */
+    @EventListener
+    void onDatabasesChanged(ResolvedDatabasesChanged event) {
+        var changed = event.added().stream().map(ResolvedDatabase::name).collect(Collectors.toCollection(HashSet::new));
+        changed.addAll(event.removed());
+        preparedGroups.removeIf(group -> changed.contains(group.database()));
+        groupLocks.keySet().removeIf(group -> changed.contains(group.database()));
+    }
+
+    private String prepareGroup(JdbcTemplate jdbc, String database, PermissionLevel permissionLevel) {
+        var group = new Group(groupName(database, permissionLevel), database, permissionLevel);
+        if (preparedGroups.contains(group)) {
+            return group.name();
+        }
+        synchronized (groupLocks.computeIfAbsent(group, key -> new Object())) {
+            if (!preparedGroups.contains(group)) {
+                var script = new ArrayList<String>();
+                script.add(RoleStatements.createGroupRoleIfMissing(group.name()));
+                script.addAll(RoleStatements.grantPrivileges(group.name(), database, permissionLevel));
+                script.add(RoleStatements.configureDefaultPrivileges(group.name(), permissionLevel));
+                scriptExecutor.execute(jdbc, script);
+                preparedGroups.add(group);
+                log.info("Prepared group role '{}' for {} access to '{}'", group.name(), permissionLevel, database);
+            }
+        }
+        return group.name();
+    }
+
+    static String groupName(String database, PermissionLevel permissionLevel) {
+        var level = switch (permissionLevel) {
+            case READ_ONLY -> "ro";
+            case READ_WRITE -> "rw";
+            case DELETE -> "dl";
+        };
+        return GROUP_PREFIX + level + databaseHash(database);
+    }
+
+    private static String databaseHash(String database) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(database.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Group(String name, String database, PermissionLevel permissionLevel) {}
+}
@@ -0,0 +1,110 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
+
+import pl.pw.cyber.dbaccess.domain.PermissionLevel;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Statements that create and configure temporary roles, shared by the regular grant path
+ * and the {@link WarmRolePool}. Role names are generated by the application, never taken from requests.
+ */
+class RoleStatements {
+
+    static String createLoginRole(String username, String password) {
+        return "CREATE ROLE %s WITH LOGIN PASSWORD %s".formatted(doubleQuote(username), quoteLiteral(password));
+    }
+
+    /**
+     * Makes the password of a role stop working {@code validFor} from now, so the database itself rejects
+     * new logins once the grant expired, even if the revocation sweep is late. The expiry is computed
+     * from the database clock, since {@code VALID UNTIL} only takes a literal and the application clock
+     * may be skewed against it.
+     */
+    static String expirePassword(String username, Duration validFor) {
+        return """
+          DO $$
+          BEGIN
+              EXECUTE format('ALTER ROLE %%I VALID UNTIL %%L', %s, now() + make_interval(secs => %d));
+          END
+          $$
+          """.formatted(quoteLiteral(username), validFor.toSeconds());
+    }
+
+    static String createPooledRole(String role) {
+        return "CREATE ROLE %s WITH NOLOGIN".formatted(doubleQuote(role));
+    }
+
+    /**
+     * Creates a NOLOGIN group role unless it exists, tolerating another instance creating it at the same time.
+     */
+    static String createGroupRoleIfMissing(String group) {
+        return """
+          DO $$
+          BEGIN
+              CREATE ROLE %s WITH NOLOGIN;
+          EXCEPTION WHEN duplicate_object OR unique_violation THEN
+              NULL;
+          END
+          $$
+          """.formatted(doubleQuote(group));
+    }
+
+    /**
+     * Drops a temporary role. Objects it created are handed over to the connected administrator first,
+     * and {@code DROP OWNED} removes every privilege and default privilege granted to it directly.
+     */
+    static List<String> dropRole(String username) {
+        var quotedUser = doubleQuote(username);
+        return List.of(
+          "REASSIGN OWNED BY " + quotedUser + " TO CURRENT_USER",
+          "DROP OWNED BY " + quotedUser,
+          "DROP ROLE IF EXISTS " + quotedUser
+        );
+    }
+
+    static List<String> grantPrivileges(String username, String database, PermissionLevel permissionLevel) {
+        var quotedUser = doubleQuote(username);
+        return List.of(
+          String.format("GRANT CONNECT ON DATABASE %s TO %s", doubleQuote(database), quotedUser),
+          String.format("GRANT USAGE ON SCHEMA public TO %s", quotedUser),
+          String.format("GRANT %s ON ALL TABLES IN SCHEMA public TO %s", tablePrivileges(permissionLevel), quotedUser),
+          String.format("GRANT USAGE, SELECT ON ALL SEQUENCES IN SCHEMA public TO %s", quotedUser)
+        );
+    }
+
+    static String configureDefaultPrivileges(String username, PermissionLevel permissionLevel) {
+        return """
+          ALTER DEFAULT PRIVILEGES IN SCHEMA public
+          GRANT %s ON TABLES TO %s
+          """.formatted(tablePrivileges(permissionLevel), doubleQuote(username));
+    }
+
+    /**
+     * Hands a pooled role out under the requested name. Privileges follow the role, so the rename
+     * and enabling login is all a grant needs.
+     */
+    static List<String> activatePooledRole(String role, String username, String password) {
+        var quotedUser = doubleQuote(username);
+        return List.of(
+          "ALTER ROLE %s RENAME TO %s".formatted(doubleQuote(role), quotedUser),
+          "ALTER ROLE %s WITH LOGIN PASSWORD %s".formatted(quotedUser, quoteLiteral(password))
+        );
+    }
+
+    static String doubleQuote(String value) {
+        return "\"" + value + "\"";
+    }
+
+    private static String quoteLiteral(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static String tablePrivileges(PermissionLevel permissionLevel) {
+        return switch (permissionLevel) {
+            case READ_ONLY -> "SELECT";
+            case READ_WRITE -> "SELECT, INSERT, UPDATE";
+            case DELETE -> "SELECT, DELETE";
+        };
+    }
+}
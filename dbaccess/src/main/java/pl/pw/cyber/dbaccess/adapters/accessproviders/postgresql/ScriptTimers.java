@@ -0,0 +1,64 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Timers of grant and revoke scripts per target database, with the same latency objectives as the
+ * application's pipeline stage timers.
+ * <p>
+ * Timers of a database are registered together on its first script and looked up by array index afterwards.
+ * Only databases that resolved to a data source get here, so the database tag stays bounded by configuration.
+ */
+class ScriptTimers {
+
+    private static final Script[] SCRIPTS = Script.values();
+
+    private final MeterRegistry meterRegistry;
+    private final Duration[] latencySlos;
+    private final ConcurrentMap<String, Timer[]> timers = new ConcurrentHashMap<>();
+
+    ScriptTimers(MeterRegistry meterRegistry, List<Duration> latencySlos) {
+        this.meterRegistry = meterRegistry;
+        this.latencySlos = latencySlos.stream().sorted().distinct().toArray(Duration[]::new);
+    }
+
+    Timer timer(Script script, String database) {
+        var existing = timers.get(database);
+        var databaseTimers = existing != null ? existing : timers.computeIfAbsent(database, this::register);
+        return databaseTimers[script.ordinal()];
+    }
+
+    private Timer[] register(String database) {
+        var databaseTimers = new Timer[SCRIPTS.length];
+        for (var script : SCRIPTS) {
+            databaseTimers[script.ordinal()] = Timer.builder("postgres_script_duration")
+              .tag("database", database)
+              .tag("script", script.label)
+              .publishPercentileHistogram()
+              .serviceLevelObjectives(latencySlos)
+              .minimumExpectedValue(Duration.ofMillis(1))
+              .maximumExpectedValue(Duration.ofSeconds(30))
+              .register(meterRegistry);
+        }
+        return databaseTimers;
+    }
+
+    enum Script {
+        CREATE_ROLE("create_role"),
+        ACTIVATE_POOLED_ROLE("activate_pooled_role"),
+        REVOKE_ROLE("revoke_role"),
+        BULK_REVOKE("bulk_revoke");
+
+        private final String label;
+
+        Script(String label) {
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresAccessProperties.ScriptMode;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Sends a grant or revoke script to the target database according to the configured {@link ScriptMode}.
+ * <p>
+ * In {@link ScriptMode#TRANSACTIONAL_BATCH} mode all statements go out as one JDBC batch on a single
+ * pinned connection and are committed together, so a script costs one round trip plus the commit
+ * and a failure leaves no half-created or half-revoked role behind.
+ */
+class StatementScriptExecutor {
+
+    private final ScriptMode mode;
+
+    StatementScriptExecutor(ScriptMode mode) {
+        this.mode = mode;
+    }
+
+    void execute(JdbcTemplate jdbc, List<String> statements) {
+        switch (mode) {
+            case PER_STATEMENT -> statements.forEach(jdbc::execute);
+            case TRANSACTIONAL_BATCH -> executeInTransaction(jdbc, statements);
+        }
+    }
+
+    /**
+     * Runs the statements as one transactional batch whatever the configured mode, for scripts that must
+     * not be left half applied.
+     */
+    void executeInTransaction(JdbcTemplate jdbc, List<String> statements) {
+        jdbc.execute(inTransaction(statements));
+    }
+
+    private static ConnectionCallback<Void> inTransaction(List<String> statements) {
+        return connection -> {
+            var autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (var statement = connection.createStatement()) {
+                for (var sql : statements) {
+                    statement.addBatch(sql);
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        };
+    }
+}
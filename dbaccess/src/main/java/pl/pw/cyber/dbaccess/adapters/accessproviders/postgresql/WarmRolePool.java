@@ -0,0 +1,172 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import pl.pw.cyber.dbaccess.domain.PermissionLevel;
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabase;
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabasesChanged;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps pre-created NOLOGIN roles per target database and permission level, so a grant only has
+ * to rename one of them and enable login instead of creating and granting a role from scratch.
+ * <p>
+ * Pools are filled lazily on a background thread: the first grant for a database and permission level
+ * misses and schedules a refill, every later take schedules a top-up. Pooled roles outlive the
+ * application and are adopted again after a restart instead of being left behind. When several
+ * instances adopt the same role, only the first activation succeeds and the others fall back to
+ * creating a role from scratch.
+ * <p>
+ * When a database is removed or its connection details change, its pools and their meters are dropped.
+ * Roles already created in it stay there and are adopted again once the database is used next.
+ */
+@Slf4j
+class WarmRolePool implements AutoCloseable {
+
+    private final int size;
+    private final Provisioner provisioner;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Key, Slot> slots = new ConcurrentHashMap<>();
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(
+      Thread.ofPlatform().name("warm-role-pool").daemon().factory()
+    );
+
+    WarmRolePool(int size, Provisioner provisioner, MeterRegistry meterRegistry) {
+        this.size = size;
+        this.provisioner = provisioner;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Takes a pooled role for the database and permission level, if one is ready.
+     * The role is removed from the pool for good, whether or not the caller manages to activate it.
+     */
+    Optional<String> take(String database, PermissionLevel permissionLevel) {
+        var slot = slotFor(new Key(database, permissionLevel));
+        var role = slot.roles().poll();
+        if (role == null) {
+            slot.misses().increment();
+        }
+        scheduleRefill(slot);
+        return Optional.ofNullable(role);
+    }
+
+    @EventListener
+    void onDatabasesChanged(ResolvedDatabasesChanged event) {
+        var changed = event.added().stream().map(ResolvedDatabase::name).collect(Collectors.toCollection(HashSet::new));
+        changed.addAll(event.removed());
+        for (var key : slots.keySet()) {
+            if (!changed.contains(key.database())) {
+                continue;
+            }
+            var slot = slots.remove(key);
+            if (slot != null) {
+                meterRegistry.remove(slot.available());
+                meterRegistry.remove(slot.misses());
+                slot.roles().clear();
+                log.info("Dropped warm role pool for {} in database '{}'", key.permissionLevel(), key.database());
+            }
+        }
+    }
+
+    private Slot slotFor(Key key) {
+        return slots.computeIfAbsent(key, this::newSlot);
+    }
+
+    private Slot newSlot(Key key) {
+        var roles = new ConcurrentLinkedQueue<String>();
+        var available = Gauge.builder("warm_roles_available", roles, Queue::size)
+          .description("Pre-created roles ready to be handed out")
+          .tag("database", key.database())
+          .tag("permission", key.permissionLevel().name())
+          .register(meterRegistry);
+        var misses = Counter.builder("warm_role_pool_miss_total")
+          .description("Grants that created a role from scratch because the pool was empty")
+          .tag("database", key.database())
+          .tag("permission", key.permissionLevel().name())
+          .register(meterRegistry);
+        return new Slot(key, roles, available, misses, new AtomicBoolean(), new AtomicBoolean());
+    }
+
+    private void scheduleRefill(Slot slot) {
+        if (slot.refilling().compareAndSet(false, true)) {
+            try {
+                refiller.execute(() -> refill(slot));
+            } catch (RuntimeException e) {
+                slot.refilling().set(false);
+                log.warn("Could not schedule warm role pool refill: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void refill(Slot slot) {
+        var key = slot.key();
+        try {
+            if (!slot.adopted().get()) {
+                var leftovers = provisioner.pooledRoles(key.database(), key.permissionLevel());
+                slot.roles().addAll(leftovers);
+                slot.adopted().set(true);
+                if (!leftovers.isEmpty()) {
+                    log.info("Adopted {} pooled {} roles in database '{}'", leftovers.size(), key.permissionLevel(), key.database());
+                }
+            }
+            while (slot.roles().size() < size && !Thread.currentThread().isInterrupted()) {
+                slot.roles().add(provisioner.provision(key.database(), key.permissionLevel()));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refill warm role pool for {} in database '{}': {}",
+              key.permissionLevel(), key.database(), e.getMessage()
+            );
+        } finally {
+            slot.refilling().set(false);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        refiller.shutdownNow();
+        refiller.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates roles for the pool in the target database.
+     */
+    interface Provisioner {
+
+        /**
+         * Lists NOLOGIN roles created for the pool earlier, e.g. before a restart.
+         */
+        List<String> pooledRoles(String database, PermissionLevel permissionLevel);
+
+        /**
+         * Creates a NOLOGIN role with all privileges of the permission level and returns its name.
+         */
+        String provision(String database, PermissionLevel permissionLevel);
+    }
+
+    private record Key(String database, PermissionLevel permissionLevel) {}
+
+    private record Slot(
+      Key key,
+      Queue<String> roles,
+      Gauge available,
+      Counter misses,
+      AtomicBoolean refilling,
+      AtomicBoolean adopted
+    ) {}
+}
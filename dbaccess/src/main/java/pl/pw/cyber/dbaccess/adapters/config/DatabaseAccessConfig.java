@@ -1,22 +1,50 @@
 package pl.pw.cyber.dbaccess.adapters.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider;
 
+import java.io.IOException;
+
 @Configuration
 @PropertySource(value = "classpath:db-access.yaml", factory = YamlPropertySourceFactory.class)
-@EnableConfigurationProperties(DatabaseAccessProperties.class)
+@EnableConfigurationProperties({DatabaseAccessProperties.class, DatabaseDefinitionsProperties.class})
 class DatabaseAccessConfig {
 
     @Bean
     DatabaseConfigurationProvider databaseConfigurationProvider(
       DatabaseAccessProperties props,
-      EnvironmentReader env
-    ) {
-        return new YamlDatabaseConfigurationProvider(props, env);
+      DatabaseDefinitionsProperties definitions,
+      EnvironmentReader env,
+      ApplicationEventPublisher publisher
+    ) throws IOException {
+        return new YamlDatabaseConfigurationProvider(initialDefinitions(props, definitions), env, publisher);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "dbaccess.databases", name = "file")
+    DatabaseDefinitionsWatcher databaseDefinitionsWatcher(
+      DatabaseAccessProperties props,
+      DatabaseDefinitionsProperties definitions,
+      ApplicationEventPublisher publisher
+    ) throws IOException {
+        return new DatabaseDefinitionsWatcher(
+          definitions.file(),
+          initialDefinitions(props, definitions),
+          definitions.reloadDelay(),
+          publisher
+        );
+    }
+
+    private static DatabaseAccessProperties initialDefinitions(
+      DatabaseAccessProperties props,
+      DatabaseDefinitionsProperties definitions
+    ) throws IOException {
+        return definitions.file() != null ? DatabaseDefinitionsLoader.load(definitions.file()) : props;
     }
 
     @Bean
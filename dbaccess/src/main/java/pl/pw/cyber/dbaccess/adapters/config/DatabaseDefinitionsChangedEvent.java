@@ -0,0 +1,9 @@
+package pl.pw.cyber.dbaccess.adapters.config;
+
+/**
+ * Published when the target database definitions were reloaded, so the configuration provider
+ * resolves them again.
+ *
+ * @param properties the new definitions
+ */
+record DatabaseDefinitionsChangedEvent(DatabaseAccessProperties properties) {}
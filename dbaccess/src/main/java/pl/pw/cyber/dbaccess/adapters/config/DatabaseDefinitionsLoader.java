@@ -0,0 +1,31 @@
+package pl.pw.cyber.dbaccess.adapters.config;
+
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads target database definitions from an external file in the {@code db-access.yaml} format.
+ */
+class DatabaseDefinitionsLoader {
+
+    static DatabaseAccessProperties load(Path file) throws NoSuchFileException {
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchFileException(file.toString());
+        }
+        var factory = new YamlPropertiesFactoryBean();
+        factory.setResources(new FileSystemResource(file));
+        var properties = Objects.requireNonNull(factory.getObject());
+        return new Binder(new MapConfigurationPropertySource(properties))
+          .bind("db", Bindable.of(DatabaseAccessProperties.class))
+          .orElseGet(() -> new DatabaseAccessProperties(Map.of()));
+    }
+}
@@ -0,0 +1,21 @@
+package pl.pw.cyber.dbaccess.adapters.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Location of the target database definitions.
+ *
+ * @param file        external definitions file in the {@code db-access.yaml} format, watched and reloaded on change;
+ *                    when not set, the definitions bundled on the classpath are used and never reloaded
+ * @param reloadDelay how long to wait after a change before reloading, so a file written in several steps
+ *                    is read once it is complete
+ */
+@ConfigurationProperties(prefix = "dbaccess.databases")
+record DatabaseDefinitionsProperties(
+  Path file,
+  @DefaultValue("500ms") Duration reloadDelay
+) {}
@@ -0,0 +1,56 @@
+package pl.pw.cyber.dbaccess.adapters.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import pl.pw.cyber.dbaccess.common.file.FileWatcher;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Watches the external database definitions file and publishes a {@link DatabaseDefinitionsChangedEvent}
+ * whenever its content changes.
+ * <p>
+ * A file that cannot be read or parsed is logged and ignored; the previous definitions stay in effect
+ * until a valid file appears.
+ */
+@Slf4j
+class DatabaseDefinitionsWatcher implements AutoCloseable {
+
+    private final Path file;
+    private final ApplicationEventPublisher publisher;
+    private final FileWatcher watcher;
+    private volatile DatabaseAccessProperties current;
+
+    DatabaseDefinitionsWatcher(
+      Path file,
+      DatabaseAccessProperties current,
+      Duration reloadDelay,
+      ApplicationEventPublisher publisher
+    ) throws IOException {
+        this.file = file;
+        this.current = current;
+        this.publisher = publisher;
+        this.watcher = new FileWatcher(file, reloadDelay, this::reload);
+    }
+
+    void reload() {
+        try {
+            var loaded = DatabaseDefinitionsLoader.load(file);
+            if (loaded.equals(current)) {
+                return;
+            }
+            current = loaded;
+            log.info("Database definitions in {} changed, {} databases defined", file, loaded.databases().size());
+            publisher.publishEvent(new DatabaseDefinitionsChangedEvent(loaded));
+        } catch (Exception e) {
+            log.warn("Keeping previous database definitions, could not load {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        watcher.close();
+    }
+}
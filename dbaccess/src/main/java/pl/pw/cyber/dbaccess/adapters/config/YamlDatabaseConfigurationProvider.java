@@ -1,51 +1,136 @@
 package pl.pw.cyber.dbaccess.adapters.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import pl.pw.cyber.dbaccess.common.result.ResultExecutionException;
 import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider;
 import pl.pw.cyber.dbaccess.domain.ResolvedDatabase;
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabasesChanged;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves target databases from the definitions in {@code db-access.yaml} and connection details
+ * read from environment variables.
+ * <p>
+ * All definitions are resolved once into an immutable registry, so lookups are a single map access and
+ * never touch the environment. Definitions with missing connection details are kept in the registry
+ * with the reason they cannot be resolved. {@link #refresh(DatabaseAccessProperties)} rebuilds the
+ * registry and swaps it atomically; lookups in flight keep using the previous one. Databases that
+ * appeared, disappeared or changed connection details are announced with {@link ResolvedDatabasesChanged}.
+ */
+@Slf4j
 class YamlDatabaseConfigurationProvider implements DatabaseConfigurationProvider {
 
     private static final String DB_URL_ENV_SUFFIX = "_DB_URL";
     private static final String DB_USERNAME_ENV_SUFFIX = "_DB_USERNAME";
     private static final String DB_PASSWORD_ENV_SUFFIX = "_DB_PASSWORD";
 
-    private final DatabaseAccessProperties properties;
     private final EnvironmentReader env;
+    private final ApplicationEventPublisher publisher;
+    private volatile DatabaseAccessProperties properties;
+    private volatile Registry registry;
 
     YamlDatabaseConfigurationProvider(
       DatabaseAccessProperties properties,
       EnvironmentReader env) {
-        this.properties = properties;
+        this(properties, env, event -> {});
+    }
+
+    YamlDatabaseConfigurationProvider(
+      DatabaseAccessProperties properties,
+      EnvironmentReader env,
+      ApplicationEventPublisher publisher) {
         this.env = env;
+        this.publisher = publisher;
+        refresh(properties);
     }
 
     @Override
     public boolean isResolvable(String databaseName) {
-        try {
-            resolve(databaseName);
-            return true;
-        } catch (ResultExecutionException e) {
-            return false;
-        }
+        return registry.resolved().containsKey(databaseName);
+    }
+
+    @Override
+    public Set<String> databaseNames() {
+        return registry.resolved().keySet();
     }
 
     @Override
     public ResolvedDatabase resolve(String databaseName) {
-        var def = properties.databases().get(databaseName);
-        if (def == null) {
-            throw new ResultExecutionException.DatabaseNotResolvable("Database definition not found for: " + databaseName);
+        var current = registry;
+        var resolved = current.resolved().get(databaseName);
+        if (resolved != null) {
+            return resolved;
         }
+        var reason = current.unresolvable().get(databaseName);
+        throw new ResultExecutionException.DatabaseNotResolvable(
+          reason != null ? reason : "Database definition not found for: " + databaseName
+        );
+    }
 
-        String prefix = def.envPrefix();
-        String url = env.getEnv(prefix + DB_URL_ENV_SUFFIX);
-        String username = env.getEnv(prefix + DB_USERNAME_ENV_SUFFIX);
-        String password = env.getEnv(prefix + DB_PASSWORD_ENV_SUFFIX);
+    /**
+     * Resolves the current definitions again, picking up changed connection details.
+     */
+    void refresh() {
+        refresh(properties);
+    }
+
+    @EventListener
+    void onDefinitionsChanged(DatabaseDefinitionsChangedEvent event) {
+        refresh(event.properties());
+    }
+
+    /**
+     * Replaces the definitions and resolves them into a new registry.
+     */
+    synchronized void refresh(DatabaseAccessProperties properties) {
+        var resolved = new HashMap<String, ResolvedDatabase>();
+        var unresolvable = new HashMap<String, String>();
+        var definitions = properties.databases() == null
+          ? Map.<String, DatabaseAccessProperties.DataSourceDefinition>of()
+          : properties.databases();
+
+        definitions.forEach((databaseName, def) -> {
+            String prefix = def.envPrefix();
+            String url = env.getEnv(prefix + DB_URL_ENV_SUFFIX);
+            String username = env.getEnv(prefix + DB_USERNAME_ENV_SUFFIX);
+            String password = env.getEnv(prefix + DB_PASSWORD_ENV_SUFFIX);
+
+            if (url == null || username == null || password == null) {
+                unresolvable.put(databaseName, "Missing DB connection details for: " + databaseName);
+            } else {
+                resolved.put(databaseName, new ResolvedDatabase(databaseName, url, username, password));
+            }
+        });
 
-        if (url == null || username == null || password == null) {
-            throw new ResultExecutionException.DatabaseNotResolvable("Missing DB connection details for: " + databaseName);
+        var previous = registry;
+        this.properties = properties;
+        this.registry = new Registry(Map.copyOf(resolved), Map.copyOf(unresolvable));
+        log.info("Resolved {} target databases, {} with missing connection details", resolved.size(), unresolvable.size());
+
+        if (previous != null) {
+            announceChanges(previous.resolved(), registry.resolved());
         }
+    }
 
-        return new ResolvedDatabase(databaseName, url, username, password);
+    private void announceChanges(Map<String, ResolvedDatabase> previous, Map<String, ResolvedDatabase> current) {
+        var removed = new HashSet<>(previous.keySet());
+        removed.removeAll(current.keySet());
+        var added = current.values().stream()
+          .filter(database -> !database.equals(previous.get(database.name())))
+          .toList();
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            log.info("Target databases changed, removed: {}, added or changed: {}",
+              removed, added.stream().map(ResolvedDatabase::name).toList()
+            );
+            publisher.publishEvent(new ResolvedDatabasesChanged(Set.copyOf(removed), added));
+        }
     }
+
+    private record Registry(Map<String, ResolvedDatabase> resolved, Map<String, String> unresolvable) {}
 }
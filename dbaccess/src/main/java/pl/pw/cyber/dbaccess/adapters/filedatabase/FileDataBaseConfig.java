@@ -1,14 +1,21 @@
 package pl.pw.cyber.dbaccess.adapters.filedatabase;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import pl.pw.cyber.dbaccess.domain.UserRepository;
 
+import java.io.IOException;
+
 @Configuration
+@EnableConfigurationProperties(UserAllowlistProperties.class)
 class FileDataBaseConfig {
 
     @Bean
-    UserRepository userRepository() {
+    UserRepository userRepository(UserAllowlistProperties properties) throws IOException {
+        if (properties.file() != null) {
+            return new YamlUserRepository(properties.file(), properties.reloadDelay());
+        }
         return new YamlUserRepository("example-users.yaml");
     }
 }
@@ -0,0 +1,20 @@
+package pl.pw.cyber.dbaccess.adapters.filedatabase;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Location of the allowlist of users that may request access.
+ *
+ * @param file        external allowlist file, watched and reloaded on change;
+ *                    when not set, {@code example-users.yaml} from the classpath is used
+ * @param reloadDelay how long to wait after a change before reloading the file
+ */
+@ConfigurationProperties(prefix = "dbaccess.users")
+record UserAllowlistProperties(
+  Path file,
+  @DefaultValue("500ms") Duration reloadDelay
+) {}
@@ -2,39 +2,95 @@ package pl.pw.cyber.dbaccess.adapters.filedatabase;
 
 import lombok.extern.slf4j.Slf4j;
 import org.yaml.snakeyaml.Yaml;
+import pl.pw.cyber.dbaccess.common.file.FileWatcher;
 import pl.pw.cyber.dbaccess.domain.User;
 import pl.pw.cyber.dbaccess.domain.UserRepository;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Allowlist of users read from a YAML file with an {@code allowlist} list of usernames.
+ * <p>
+ * The allowlist is kept as an immutable hash map from username to a prebuilt {@code Optional<User>},
+ * so a lookup neither scans the list nor allocates. When read from an external file, the file is
+ * watched and the map is rebuilt and swapped atomically on change; a file that cannot be read keeps
+ * the previous allowlist in effect.
+ */
 @Slf4j
-class YamlUserRepository implements UserRepository {
+class YamlUserRepository implements UserRepository, AutoCloseable {
 
-    private final List<String> allowlist;
+    private final Path file;
+    private final FileWatcher watcher;
+    private volatile Map<String, Optional<User>> users;
 
     YamlUserRepository(String allowlist) {
-        this.allowlist = loadAllowlistFromFile(allowlist);
+        this.file = null;
+        this.watcher = null;
+        this.users = loadAllowlistFromClasspath(allowlist);
+    }
+
+    YamlUserRepository(Path file, Duration reloadDelay) throws IOException {
+        this.file = file;
+        this.users = loadAllowlistFromFile(file).orElseGet(Map::of);
+        this.watcher = new FileWatcher(file, reloadDelay, this::reload);
     }
 
     @Override
     public Optional<User> findBy(String username) {
-        return allowlist.contains(username)
-          ? Optional.of(new User(username))
-          : Optional.empty();
+        if (username == null) {
+            return Optional.empty();
+        }
+        return users.getOrDefault(username, Optional.empty());
     }
 
-    @SuppressWarnings("unchecked")
-    private List<String> loadAllowlistFromFile(String allowlist) {
+    void reload() {
+        loadAllowlistFromFile(file).ifPresent(loaded -> {
+            if (!loaded.keySet().equals(users.keySet())) {
+                users = loaded;
+                log.info("Allowlist in {} changed, {} users allowed", file, loaded.size());
+            }
+        });
+    }
+
+    private Map<String, Optional<User>> loadAllowlistFromClasspath(String allowlist) {
         try (InputStream input = getClass().getClassLoader().getResourceAsStream(allowlist)) {
-            Yaml yaml = new Yaml();
-            Map<String, Object> data = yaml.load(input);
-            return (List<String>) data.get("allowlist");
+            return parse(input);
         } catch (Exception e) {
             log.error("Error loading allowlist from file", e);
-            return List.of();
+            return Map.of();
+        }
+    }
+
+    private static Optional<Map<String, Optional<User>>> loadAllowlistFromFile(Path file) {
+        try (InputStream input = Files.newInputStream(file)) {
+            return Optional.of(parse(input));
+        } catch (Exception e) {
+            log.warn("Could not load allowlist from {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Optional<User>> parse(InputStream input) {
+        Map<String, Object> data = new Yaml().load(input);
+        var usernames = (List<String>) data.get("allowlist");
+        var users = new HashMap<String, Optional<User>>(usernames.size() * 2);
+        usernames.forEach(username -> users.put(username, Optional.of(new User(username))));
+        return Map.copyOf(users);
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        if (watcher != null) {
+            watcher.close();
         }
     }
 }
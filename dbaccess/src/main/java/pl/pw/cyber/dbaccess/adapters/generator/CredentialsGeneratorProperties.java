@@ -0,0 +1,26 @@
+package pl.pw.cyber.dbaccess.adapters.generator;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param mode     how passwords meeting the policy are produced
+ * @param prefetch credentials generated ahead of time on a background thread; 0 generates them on demand
+ */
+@ConfigurationProperties(prefix = "dbaccess.credentials")
+record CredentialsGeneratorProperties(
+  @DefaultValue("ONE_PASS") Mode mode,
+  @DefaultValue("0") int prefetch
+) {
+
+    enum Mode {
+        /**
+         * Generates random passwords until one meets the policy.
+         */
+        REJECTION_SAMPLING,
+        /**
+         * Constructs a password meeting the policy in a single pass.
+         */
+        ONE_PASS
+    }
+}
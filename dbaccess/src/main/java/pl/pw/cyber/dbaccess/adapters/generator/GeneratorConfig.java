@@ -1,14 +1,24 @@
 package pl.pw.cyber.dbaccess.adapters.generator;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import pl.pw.cyber.dbaccess.domain.UserCredentialsGenerator;
 
 @Configuration
+@EnableConfigurationProperties(CredentialsGeneratorProperties.class)
 class GeneratorConfig {
 
     @Bean
-    UserCredentialsGenerator userCredentialsGenerator() {
-        return new SecureUserCredentialsGenerator();
+    UserCredentialsGenerator userCredentialsGenerator(CredentialsGeneratorProperties properties, MeterRegistry meterRegistry) {
+        UserCredentialsGenerator generator = switch (properties.mode()) {
+            case REJECTION_SAMPLING -> new SecureUserCredentialsGenerator();
+            case ONE_PASS -> new OnePassUserCredentialsGenerator();
+        };
+        if (properties.prefetch() > 0) {
+            return new PrefetchingUserCredentialsGenerator(generator, properties.prefetch(), meterRegistry);
+        }
+        return generator;
     }
 }
@@ -0,0 +1,113 @@
+package pl.pw.cyber.dbaccess.adapters.generator;
+
+import pl.pw.cyber.dbaccess.domain.TemporaryCredentials;
+import pl.pw.cyber.dbaccess.domain.UserCredentialsGenerator;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.ALL_ALLOWED;
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.DIGITS;
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.LOWER;
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.MIN_DISTINCT_PASSWORD_CHARACTERS;
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.PASSWORD_LENGTH;
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.SPECIAL;
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.UPPER;
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.USERNAME_ALLOWED;
+import static pl.pw.cyber.dbaccess.adapters.generator.SecureUserCredentialsGenerator.USERNAME_LENGTH;
+
+/**
+ * Generates credentials following the same policy as {@link SecureUserCredentialsGenerator},
+ * but builds a compliant password in a single pass instead of retrying until one passes.
+ * <p>
+ * One character of each required class is placed first, the rest is filled from the full character set,
+ * and the result is shuffled. Characters already used are tracked in a bitset held in two {@code long} locals,
+ * and once the remaining positions are just enough to reach the required number of distinct characters,
+ * only unused ones are drawn. Character buffers are reused per thread and wiped after use, so apart from
+ * the resulting credentials a call allocates nothing.
+ */
+class OnePassUserCredentialsGenerator implements UserCredentialsGenerator {
+
+    private static final String[] REQUIRED_CLASSES = {UPPER, LOWER, DIGITS, SPECIAL};
+
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<char[]> usernameBuffer = ThreadLocal.withInitial(() -> new char[USERNAME_LENGTH]);
+    private final ThreadLocal<char[]> passwordBuffer = ThreadLocal.withInitial(() -> new char[PASSWORD_LENGTH]);
+
+    @Override
+    public TemporaryCredentials generate() {
+        return new TemporaryCredentials(generateUsername(), generatePassword());
+    }
+
+    private String generateUsername() {
+        var buffer = usernameBuffer.get();
+        for (var i = 0; i < buffer.length; i++) {
+            buffer[i] = USERNAME_ALLOWED.charAt(random.nextInt(USERNAME_ALLOWED.length()));
+        }
+        return new String(buffer);
+    }
+
+    private String generatePassword() {
+        var buffer = passwordBuffer.get();
+        var usedLow = 0L;
+        var usedHigh = 0L;
+        var distinct = 0;
+
+        for (var position = 0; position < buffer.length; position++) {
+            char c;
+            if (position < REQUIRED_CLASSES.length) {
+                var characterClass = REQUIRED_CLASSES[position];
+                c = characterClass.charAt(random.nextInt(characterClass.length()));
+            } else if (buffer.length - position <= MIN_DISTINCT_PASSWORD_CHARACTERS - distinct) {
+                c = randomUnused(usedLow, usedHigh, distinct);
+            } else {
+                c = ALL_ALLOWED.charAt(random.nextInt(ALL_ALLOWED.length()));
+            }
+            buffer[position] = c;
+            if (!isUsed(usedLow, usedHigh, c)) {
+                distinct++;
+                if (c < 64) {
+                    usedLow |= 1L << c;
+                } else {
+                    usedHigh |= 1L << c;
+                }
+            }
+        }
+        shuffle(buffer);
+
+        var password = new String(buffer);
+        Arrays.fill(buffer, '\0');
+        return password;
+    }
+
+    /**
+     * Returns a uniformly chosen character of {@link SecureUserCredentialsGenerator#ALL_ALLOWED} not used yet.
+     */
+    private char randomUnused(long usedLow, long usedHigh, int usedCount) {
+        var skip = random.nextInt(ALL_ALLOWED.length() - usedCount);
+        for (var i = 0; i < ALL_ALLOWED.length(); i++) {
+            var c = ALL_ALLOWED.charAt(i);
+            if (!isUsed(usedLow, usedHigh, c) && skip-- == 0) {
+                return c;
+            }
+        }
+        throw new IllegalStateException("No unused password character left");
+    }
+
+    private void shuffle(char[] buffer) {
+        for (var i = buffer.length - 1; i > 0; i--) {
+            var j = random.nextInt(i + 1);
+            var tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    /**
+     * Whether {@code c} is marked in the bitset of ASCII characters split into {@code usedLow} for codes
+     * below 64 and {@code usedHigh} for the rest; shifts only use the low six bits of {@code c}.
+     */
+    private static boolean isUsed(long usedLow, long usedHigh, char c) {
+        return ((c < 64 ? usedLow : usedHigh) & (1L << c)) != 0;
+    }
+}
@@ -0,0 +1,68 @@
+package pl.pw.cyber.dbaccess.adapters.generator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import pl.pw.cyber.dbaccess.domain.TemporaryCredentials;
+import pl.pw.cyber.dbaccess.domain.UserCredentialsGenerator;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Keeps a bounded buffer of credentials generated ahead of time on a background thread,
+ * so grants do not wait on {@code SecureRandom}. When the buffer runs dry, credentials are
+ * generated on the calling thread instead.
+ * <p>
+ * Buffered credentials are handed out once and never reused.
+ */
+@Slf4j
+class PrefetchingUserCredentialsGenerator implements UserCredentialsGenerator, AutoCloseable {
+
+    private final UserCredentialsGenerator delegate;
+    private final BlockingQueue<TemporaryCredentials> buffer;
+    private final Counter misses;
+    private final Thread refill;
+
+    PrefetchingUserCredentialsGenerator(UserCredentialsGenerator delegate, int capacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        Gauge.builder("credentials_prefetched", buffer, BlockingQueue::size)
+          .description("Credentials generated ahead of time and not handed out yet")
+          .register(meterRegistry);
+        this.misses = Counter.builder("credentials_prefetch_miss_total")
+          .description("Credentials generated on the request thread because the buffer was empty")
+          .register(meterRegistry);
+        this.refill = Thread.ofPlatform().name("credentials-prefetch").daemon().start(this::refill);
+    }
+
+    @Override
+    public TemporaryCredentials generate() {
+        var credentials = buffer.poll();
+        if (credentials != null) {
+            return credentials;
+        }
+        misses.increment();
+        return delegate.generate();
+    }
+
+    private void refill() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                buffer.put(delegate.generate());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Credentials prefetching stopped: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        refill.interrupt();
+        refill.join();
+        buffer.clear();
+    }
+}
@@ -51,14 +51,16 @@ import java.security.SecureRandom;
  */
 class SecureUserCredentialsGenerator implements UserCredentialsGenerator {
 
-    private static final String LOWER = "abcdefghijklmnopqrstuvwxyz";
-    private static final String UPPER = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private static final String DIGITS = "0123456789";
-    private static final String SPECIAL = "!@#$%^&*()-_+=<>?";
-    private static final String ALL_ALLOWED = LOWER + UPPER + DIGITS + SPECIAL;
+    static final String LOWER = "abcdefghijklmnopqrstuvwxyz";
+    static final String UPPER = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    static final String DIGITS = "0123456789";
+    static final String SPECIAL = "!@#$%^&*()-_+=<>?";
+    static final String ALL_ALLOWED = LOWER + UPPER + DIGITS + SPECIAL;
+    static final String USERNAME_ALLOWED = LOWER + DIGITS;
 
-    private static final int USERNAME_LENGTH = 12;
-    private static final int PASSWORD_LENGTH = 16;
+    static final int USERNAME_LENGTH = 12;
+    static final int PASSWORD_LENGTH = 16;
+    static final int MIN_DISTINCT_PASSWORD_CHARACTERS = 12;
 
     private final SecureRandom random = new SecureRandom();
 
@@ -70,8 +72,7 @@ class SecureUserCredentialsGenerator implements UserCredentialsGenerator {
     }
 
     private String generateUsername() {
-        var allowed = LOWER + DIGITS;
-        return generateRandomString(allowed, USERNAME_LENGTH);
+        return generateRandomString(USERNAME_ALLOWED, USERNAME_LENGTH);
     }
 
     private String generateSecurePassword() {
@@ -87,7 +88,7 @@ class SecureUserCredentialsGenerator implements UserCredentialsGenerator {
           && password.chars().anyMatch(Character::isLowerCase)
           && password.chars().anyMatch(Character::isDigit)
           && password.chars().anyMatch(c -> SPECIAL.indexOf((char) c) >= 0)
-          && password.chars().distinct().count() >= 12;
+          && password.chars().distinct().count() >= MIN_DISTINCT_PASSWORD_CHARACTERS;
     }
 
     private String generateRandomString(String characterSet, int length) {
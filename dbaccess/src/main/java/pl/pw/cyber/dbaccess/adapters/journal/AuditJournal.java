@@ -0,0 +1,285 @@
+package pl.pw.cyber.dbaccess.adapters.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only, segmented log of {@link JournalRecord}s, one JSON record per line.
+ * <p>
+ * Appends return once their records are on disk. Concurrent appends share fsyncs: the first waiting
+ * appender syncs everything written so far, and the others wait for it instead of syncing on their own.
+ * The active segment is sealed once it reaches the configured size, and sealed segments are
+ * periodically compacted into one, with revocations folded into their grants.
+ */
+@Slf4j
+class AuditJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPACTION_SUFFIX = ".compacting";
+
+    private final ObjectMapper mapper = JsonMapper.builder()
+      .addModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+    private final Path directory;
+    private final long segmentSize;
+    private final Duration revokedRetention;
+    private final Clock clock;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long nextSegment;
+    private Path activePath;
+    private FileChannel active;
+    private long activeSize;
+    private volatile long written;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private boolean syncing;
+    private long durable;
+
+    AuditJournal(Path directory, long segmentSize, Duration revokedRetention, Clock clock) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.revokedRetention = revokedRetention;
+        this.clock = clock;
+        deleteUnfinishedCompactions();
+        this.nextSegment = sealedSegments().stream().mapToLong(AuditJournal::segmentNumber).max().orElse(0) + 1;
+        openActiveSegment();
+    }
+
+    /**
+     * Passes all records written before this journal was opened to {@code consumer}, oldest first.
+     */
+    void replay(Consumer<JournalRecord> consumer) throws IOException {
+        for (var segment : sealedSegments()) {
+            read(segment).forEach(consumer);
+        }
+    }
+
+    void append(Collection<JournalRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        var bytes = encode(records);
+        long sequence;
+        writeLock.lock();
+        try {
+            if (activeSize >= segmentSize) {
+                rotate();
+            }
+            var buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                active.write(buffer);
+            }
+            activeSize += bytes.length;
+            sequence = ++written;
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(sequence);
+    }
+
+    private void awaitDurable(long sequence) throws IOException {
+        syncLock.lock();
+        try {
+            while (durable < sequence) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                var target = written;
+                var channel = active;
+                syncLock.unlock();
+                try {
+                    channel.force(false);
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    synced.signalAll();
+                }
+                durable = Math.max(durable, target);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Seals the active segment and starts a new one. Requires {@link #writeLock}.
+     */
+    private void rotate() throws IOException {
+        syncLock.lock();
+        try {
+            while (syncing) {
+                synced.awaitUninterruptibly();
+            }
+            active.force(false);
+            active.close();
+            durable = written;
+            openActiveSegment();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites all sealed segments into one that holds a single record per entry, dropping revoked
+     * entries older than the retention. Must not run concurrently with itself.
+     */
+    void compact() throws IOException {
+        List<Path> sealed;
+        var written = false;
+        writeLock.lock();
+        try {
+            if (activeSize > 0) {
+                rotate();
+                written = true;
+            }
+            sealed = sealedSegments();
+        } finally {
+            writeLock.unlock();
+        }
+        if (sealed.isEmpty() || (sealed.size() == 1 && !written && revokedRetention == null)) {
+            return;
+        }
+
+        var entries = new LinkedHashMap<String, JournalRecord>();
+        for (var segment : sealed) {
+            for (var record : read(segment)) {
+                switch (record.type()) {
+                    case GRANT -> entries.put(record.id(), record);
+                    case REVOKE -> entries.computeIfPresent(record.id(), (id, grant) -> grant.revokedAt(record.revokedAt()));
+                }
+            }
+        }
+        var retained = entries.values().stream().filter(this::isRetained).toList();
+
+        // Replaying the old segments together with the compacted one yields the same state,
+        // so a crash between the move and the deletes below loses nothing.
+        var target = sealed.getLast();
+        var compacting = target.resolveSibling(target.getFileName() + COMPACTION_SUFFIX);
+        try (var channel = FileChannel.open(compacting, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            var buffer = ByteBuffer.wrap(encode(retained));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(compacting, target, ATOMIC_MOVE, REPLACE_EXISTING);
+        for (var segment : sealed.subList(0, sealed.size() - 1)) {
+            Files.delete(segment);
+        }
+        log.info("Compacted {} audit journal segments into {} entries", sealed.size(), retained.size());
+    }
+
+    private boolean isRetained(JournalRecord record) {
+        if (revokedRetention == null || !record.entry().revoked() || record.revokedAt() == null) {
+            return true;
+        }
+        return record.revokedAt().isAfter(clock.instant().minus(revokedRetention));
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            active.force(false);
+            active.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private List<Path> sealedSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+              .filter(AuditJournal::isSegment)
+              .filter(path -> !path.equals(activePath))
+              .sorted(Comparator.comparingLong(AuditJournal::segmentNumber))
+              .toList();
+        }
+    }
+
+    private List<JournalRecord> read(Path segment) throws IOException {
+        var lines = new String(Files.readAllBytes(segment), UTF_8).lines().toList();
+        var records = new ArrayList<JournalRecord>(lines.size());
+        for (var i = 0; i < lines.size(); i++) {
+            try {
+                records.add(mapper.readValue(lines.get(i), JournalRecord.class));
+            } catch (IOException e) {
+                // Only the last line can be torn by a crash, and its append never returned.
+                if (i < lines.size() - 1) {
+                    throw e;
+                }
+                log.warn("Skipping incomplete last record of audit journal segment {}", segment);
+            }
+        }
+        return records;
+    }
+
+    private byte[] encode(Collection<JournalRecord> records) throws IOException {
+        var out = new ByteArrayOutputStream();
+        for (var record : records) {
+            out.write(mapper.writeValueAsBytes(record));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    private void openActiveSegment() throws IOException {
+        activePath = directory.resolve(SEGMENT_PREFIX + "%020d".formatted(nextSegment++) + SEGMENT_SUFFIX);
+        active = FileChannel.open(activePath, CREATE_NEW, WRITE, APPEND);
+        activeSize = 0;
+    }
+
+    private void deleteUnfinishedCompactions() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (var file : files.filter(path -> path.getFileName().toString().endsWith(COMPACTION_SUFFIX)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        var name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
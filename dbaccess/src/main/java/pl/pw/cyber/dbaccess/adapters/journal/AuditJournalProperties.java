@@ -0,0 +1,25 @@
+package pl.pw.cyber.dbaccess.adapters.journal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Local audit journal used when {@code dbaccess.audit.store} is {@code journal}.
+ *
+ * @param directory          directory of the journal segments
+ * @param segmentSize        size after which the active segment is sealed and a new one is started
+ * @param compactionInterval how often sealed segments are compacted
+ * @param revokedRetention   how long revoked entries are kept by compaction; kept forever when not set
+ */
+@ConfigurationProperties(prefix = "dbaccess.audit.journal")
+record AuditJournalProperties(
+  @DefaultValue("data/audit-journal") Path directory,
+  @DefaultValue("16MB") DataSize segmentSize,
+  @DefaultValue("1h") Duration compactionInterval,
+  Duration revokedRetention
+) {
+}
@@ -0,0 +1,60 @@
+package pl.pw.cyber.dbaccess.adapters.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLogRepository;
+
+import java.io.IOException;
+import java.time.Clock;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "dbaccess.audit", name = "store", havingValue = "journal")
+@EnableConfigurationProperties(AuditJournalProperties.class)
+class JournalAuditLogConfig {
+
+    @Bean
+    AuditJournal auditJournal(AuditJournalProperties properties, Clock clock) throws IOException {
+        return new AuditJournal(
+          properties.directory(),
+          properties.segmentSize().toBytes(),
+          properties.revokedRetention(),
+          clock
+        );
+    }
+
+    @Bean
+    TemporaryAccessAuditLogRepository journalTemporaryAccessAuditLogRepository(AuditJournal auditJournal) throws IOException {
+        return new JournalTemporaryAccessAuditLogRepository(auditJournal);
+    }
+
+    @Bean
+    JournalCompaction journalCompaction(AuditJournal auditJournal) {
+        return new JournalCompaction(auditJournal);
+    }
+
+    static class JournalCompaction {
+
+        private final AuditJournal journal;
+
+        JournalCompaction(AuditJournal journal) {
+            this.journal = journal;
+        }
+
+        @Scheduled(
+          initialDelayString = "${dbaccess.audit.journal.compaction-interval:1h}",
+          fixedDelayString = "${dbaccess.audit.journal.compaction-interval:1h}"
+        )
+        void compact() {
+            try {
+                journal.compact();
+            } catch (Exception e) {
+                log.error("Failed to compact the audit journal: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package pl.pw.cyber.dbaccess.adapters.journal;
+
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog;
+
+import java.time.Instant;
+
+/**
+ * Single line of the audit journal: either a granted entry or the revocation of an earlier one.
+ * Compaction folds revocations into their grants, so a {@code GRANT} may already be revoked.
+ */
+record JournalRecord(
+  Type type,
+  String id,
+  TemporaryAccessAuditLog entry,
+  Instant revokedAt
+) {
+
+    enum Type { GRANT, REVOKE }
+
+    static JournalRecord grant(TemporaryAccessAuditLog entry) {
+        return new JournalRecord(Type.GRANT, entry.id(), entry, null);
+    }
+
+    static JournalRecord revoke(String id, Instant revokedAt) {
+        return new JournalRecord(Type.REVOKE, id, null, revokedAt);
+    }
+
+    JournalRecord revokedAt(Instant revokedAt) {
+        return new JournalRecord(Type.GRANT, id, entry.withRevoked(true), revokedAt);
+    }
+}
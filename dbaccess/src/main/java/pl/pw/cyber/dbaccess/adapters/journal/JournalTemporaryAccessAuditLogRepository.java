@@ -0,0 +1,145 @@
+package pl.pw.cyber.dbaccess.adapters.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.pw.cyber.dbaccess.domain.AuditLogCursor;
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog;
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLogRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Audit log kept in a local {@link AuditJournal}, for deployments without Mongo.
+ * <p>
+ * Entries not revoked yet are indexed in memory by {@code (expiresAt, id)}, so expiry lookups are
+ * a range scan of that index. The index is rebuilt by replaying the journal on startup.
+ * Revoked entries live only in the journal.
+ */
+@Slf4j
+class JournalTemporaryAccessAuditLogRepository implements TemporaryAccessAuditLogRepository {
+
+    private static final Comparator<AuditLogCursor> KEYSET_ORDER = Comparator
+      .comparing(AuditLogCursor::expiresAt)
+      .thenComparing(AuditLogCursor::id);
+
+    private final AuditJournal journal;
+    private final ConcurrentSkipListMap<AuditLogCursor, TemporaryAccessAuditLog> pending =
+      new ConcurrentSkipListMap<>(KEYSET_ORDER);
+    private final Map<String, AuditLogCursor> pendingById = new ConcurrentHashMap<>();
+    private final Map<String, Instant> leases = new ConcurrentHashMap<>();
+
+    JournalTemporaryAccessAuditLogRepository(AuditJournal journal) throws IOException {
+        this.journal = journal;
+        journal.replay(this::apply);
+        log.info("Loaded {} not revoked audit log entries from the journal", pending.size());
+    }
+
+    @Override
+    public void logTemporaryAccess(TemporaryAccessAuditLog temporaryAccessAuditLog) {
+        var entry = temporaryAccessAuditLog.id() == null
+          ? withId(temporaryAccessAuditLog, UUID.randomUUID().toString())
+          : temporaryAccessAuditLog;
+        var record = JournalRecord.grant(entry);
+        append(List.of(record));
+        apply(record);
+    }
+
+    /**
+     * Leases are kept in memory only, since the journal serves a single instance. They keep failed
+     * revocations from being retried before the lease expires, as with the Mongo store.
+     */
+    @Override
+    public synchronized List<TemporaryAccessAuditLog> claimExpired(
+      Instant expiredBefore,
+      Instant now,
+      String owner,
+      Instant leaseUntil,
+      int limit
+    ) {
+        var claimed = pending.values().stream()
+          .takeWhile(entry -> entry.expiresAt().isBefore(expiredBefore))
+          .filter(entry -> !leases.getOrDefault(entry.id(), Instant.MIN).isAfter(now))
+          .limit(limit)
+          .toList();
+        claimed.forEach(entry -> leases.put(entry.id(), leaseUntil));
+        return claimed;
+    }
+
+    @Override
+    public List<TemporaryAccessAuditLog> findNotRevoked(AuditLogCursor after, int limit) {
+        return page(after).values().stream()
+          .limit(limit)
+          .toList();
+    }
+
+    @Override
+    public void markRevoked(String id, Instant revokedAt) {
+        markRevoked(List.of(id), revokedAt);
+    }
+
+    @Override
+    public void markRevoked(Collection<String> ids, Instant revokedAt) {
+        var records = ids.stream()
+          .filter(pendingById::containsKey)
+          .map(id -> JournalRecord.revoke(id, revokedAt))
+          .toList();
+        append(records);
+        records.forEach(this::apply);
+    }
+
+    private Map<AuditLogCursor, TemporaryAccessAuditLog> page(AuditLogCursor after) {
+        return after == null ? pending : pending.tailMap(after, false);
+    }
+
+    private void apply(JournalRecord record) {
+        switch (record.type()) {
+            case GRANT -> {
+                if (record.entry().revoked()) {
+                    remove(record.id());
+                } else {
+                    var key = AuditLogCursor.after(record.entry());
+                    pendingById.put(record.id(), key);
+                    pending.put(key, record.entry());
+                }
+            }
+            case REVOKE -> remove(record.id());
+        }
+    }
+
+    private void remove(String id) {
+        var key = pendingById.remove(id);
+        if (key != null) {
+            pending.remove(key);
+        }
+        leases.remove(id);
+    }
+
+    private void append(List<JournalRecord> records) {
+        try {
+            journal.append(records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the audit journal", e);
+        }
+    }
+
+    private static TemporaryAccessAuditLog withId(TemporaryAccessAuditLog entry, String id) {
+        return TemporaryAccessAuditLog.builder()
+          .withId(id)
+          .withRequestedByUsername(entry.requestedByUsername())
+          .withGrantedUsername(entry.grantedUsername())
+          .withTargetDatabase(entry.targetDatabase())
+          .withPermissionLevel(entry.permissionLevel())
+          .withGrantedAt(entry.grantedAt())
+          .withExpiresAt(entry.expiresAt())
+          .withRevoked(entry.revoked())
+          .build();
+    }
+}
@@ -0,0 +1,26 @@
+package pl.pw.cyber.dbaccess.adapters.mongo;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Asynchronous audit log writes for grants.
+ *
+ * @param enabled        write grants through {@link BatchingAuditLogWriter} instead of one synchronous insert per grant
+ * @param queueCapacity  grants waiting for a flush; when full, grants fall back to a synchronous insert
+ * @param batchSize      queued grants that trigger a flush before {@code flushInterval} elapses
+ * @param flushInterval  maximum time a grant waits in the queue
+ * @param walDirectory   directory of the write-ahead log keeping queued grants across crashes
+ */
+@ConfigurationProperties(prefix = "dbaccess.audit.async")
+record AsyncAuditWriteProperties(
+  @DefaultValue("false") boolean enabled,
+  @DefaultValue("10000") int queueCapacity,
+  @DefaultValue("500") int batchSize,
+  @DefaultValue("200ms") Duration flushInterval,
+  @DefaultValue("data/audit-wal") Path walDirectory
+) {
+}
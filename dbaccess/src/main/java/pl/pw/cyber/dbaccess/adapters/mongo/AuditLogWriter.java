@@ -0,0 +1,10 @@
+package pl.pw.cyber.dbaccess.adapters.mongo;
+
+/**
+ * Stores new audit log documents.
+ */
+@FunctionalInterface
+interface AuditLogWriter {
+
+    void write(MongoTemporaryAccessAuditLog document);
+}
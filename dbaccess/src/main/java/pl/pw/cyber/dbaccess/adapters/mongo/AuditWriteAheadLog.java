@@ -0,0 +1,125 @@
+package pl.pw.cyber.dbaccess.adapters.mongo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only log of audit documents that are not stored in Mongo yet, one JSON document per line.
+ * <p>
+ * Documents are appended and fsynced to the active segment. {@link #rotate()} seals it, and sealed
+ * segments are deleted once all their documents are stored. Segments left behind by a crash are
+ * sealed on startup and read back with {@link #read(Path)}.
+ */
+@Slf4j
+class AuditWriteAheadLog implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final ObjectMapper mapper = JsonMapper.builder()
+      .addModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+    private final Path directory;
+    private long nextSegment;
+    private Path activePath;
+    private FileChannel active;
+
+    AuditWriteAheadLog(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.nextSegment = sealedSegments().stream().mapToLong(AuditWriteAheadLog::segmentNumber).max().orElse(0) + 1;
+        openActiveSegment();
+    }
+
+    synchronized void append(MongoTemporaryAccessAuditLog document) throws IOException {
+        var line = mapper.writeValueAsString(document) + "\n";
+        var buffer = ByteBuffer.wrap(line.getBytes(UTF_8));
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+        active.force(false);
+    }
+
+    /**
+     * Seals the active segment and starts a new one.
+     */
+    synchronized void rotate() throws IOException {
+        active.close();
+        openActiveSegment();
+    }
+
+    /**
+     * Returns all segments except the active one, oldest first.
+     */
+    synchronized List<Path> sealedSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+              .filter(AuditWriteAheadLog::isSegment)
+              .filter(path -> !path.equals(activePath))
+              .sorted(Comparator.comparingLong(AuditWriteAheadLog::segmentNumber))
+              .toList();
+        }
+    }
+
+    List<MongoTemporaryAccessAuditLog> read(Path segment) throws IOException {
+        var lines = new String(Files.readAllBytes(segment), UTF_8).lines().toList();
+        var documents = new ArrayList<MongoTemporaryAccessAuditLog>(lines.size());
+        for (var i = 0; i < lines.size(); i++) {
+            try {
+                documents.add(mapper.readValue(lines.get(i), MongoTemporaryAccessAuditLog.class));
+            } catch (IOException e) {
+                // Only the last line can be torn by a crash, and it was never acknowledged.
+                if (i < lines.size() - 1) {
+                    throw e;
+                }
+                log.warn("Skipping incomplete last record of audit write-ahead log segment {}", segment);
+            }
+        }
+        return documents;
+    }
+
+    void delete(Collection<Path> segments) throws IOException {
+        for (var segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.close();
+    }
+
+    private void openActiveSegment() throws IOException {
+        activePath = directory.resolve(SEGMENT_PREFIX + "%020d".formatted(nextSegment++) + SEGMENT_SUFFIX);
+        active = FileChannel.open(activePath, CREATE_NEW, WRITE, APPEND);
+    }
+
+    private static boolean isSegment(Path path) {
+        var name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
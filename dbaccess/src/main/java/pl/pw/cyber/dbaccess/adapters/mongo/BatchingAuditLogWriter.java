@@ -0,0 +1,195 @@
+package pl.pw.cyber.dbaccess.adapters.mongo;
+
+import com.mongodb.ErrorCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes audit documents to Mongo in batches, off the request thread.
+ * <p>
+ * A document is appended to the {@link AuditWriteAheadLog} before {@link #write} returns, so a grant is
+ * not lost if the process dies before the flush. Documents get their ids here, which makes replaying
+ * the log after a crash idempotent: documents stored by an earlier attempt are skipped as duplicates.
+ * When the queue is full, the document is inserted synchronously instead.
+ */
+@Slf4j
+class BatchingAuditLogWriter implements AuditLogWriter, AutoCloseable {
+
+    private final MongoTemplate mongoTemplate;
+    private final AuditWriteAheadLog writeAheadLog;
+    private final BlockingQueue<MongoTemporaryAccessAuditLog> queue;
+    private final int batchSize;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("audit-flusher").daemon().factory()
+    );
+    private final List<MongoTemporaryAccessAuditLog> pending = new ArrayList<>();
+    private final Counter queueFull;
+    private final Counter flushFailures;
+
+    BatchingAuditLogWriter(
+      MongoTemplate mongoTemplate,
+      AuditWriteAheadLog writeAheadLog,
+      int queueCapacity,
+      int batchSize,
+      Duration flushInterval,
+      MeterRegistry meterRegistry
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.writeAheadLog = writeAheadLog;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        Gauge.builder("audit_write_queue_size", queue, BlockingQueue::size)
+          .description("Audit documents waiting for a batched insert")
+          .register(meterRegistry);
+        this.queueFull = Counter.builder("audit_write_queue_full_total")
+          .description("Audit documents inserted synchronously because the queue was full")
+          .register(meterRegistry);
+        this.flushFailures = Counter.builder("audit_write_flush_failed_total")
+          .description("Batched audit inserts that failed and will be retried")
+          .register(meterRegistry);
+
+        recover();
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void write(MongoTemporaryAccessAuditLog document) {
+        var withId = document.id() == null ? document.withId(new ObjectId().toHexString()) : document;
+        if (!enqueue(withId)) {
+            queueFull.increment();
+            log.warn("Audit write queue is full, storing grant '{}' synchronously", withId.grantedUsername());
+            mongoTemplate.insert(withId);
+            return;
+        }
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    private boolean enqueue(MongoTemporaryAccessAuditLog document) {
+        appendLock.lock();
+        try {
+            if (queue.remainingCapacity() == 0) {
+                return false;
+            }
+            writeAheadLog.append(document);
+            queue.add(document);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to audit write-ahead log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void recover() {
+        try {
+            for (var segment : writeAheadLog.sealedSegments()) {
+                pending.addAll(writeAheadLog.read(segment));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read audit write-ahead log", e);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replaying {} audit documents from the write-ahead log", pending.size());
+            flush();
+        }
+    }
+
+    /**
+     * Stores all queued documents. Runs on the flusher thread only, except for recovery and close.
+     * <p>
+     * Documents of a failed flush are retried before the queue is drained again, so during a Mongo outage
+     * the queue fills up and {@link #write} falls back to synchronous inserts instead of buffering without limit.
+     */
+    private void flush() {
+        flushRequested.set(false);
+        try {
+            if (!pending.isEmpty()) {
+                storePending(sealedSegments());
+            }
+            if (queue.isEmpty()) {
+                return;
+            }
+            List<Path> sealed;
+            appendLock.lock();
+            try {
+                // Documents drained here are exactly the ones appended to the segments sealed so far.
+                writeAheadLog.rotate();
+                queue.drainTo(pending);
+                sealed = writeAheadLog.sealedSegments();
+            } finally {
+                appendLock.unlock();
+            }
+            storePending(sealed);
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.error("Failed to flush {} audit documents, will retry: {}", pending.size(), e.getMessage(), e);
+        }
+    }
+
+    private List<Path> sealedSegments() throws IOException {
+        appendLock.lock();
+        try {
+            return writeAheadLog.sealedSegments();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void storePending(List<Path> sealed) throws IOException {
+        for (var from = 0; from < pending.size(); from += batchSize) {
+            insert(pending.subList(from, Math.min(from + batchSize, pending.size())));
+        }
+        log.debug("Flushed {} audit documents", pending.size());
+        pending.clear();
+        writeAheadLog.delete(sealed);
+    }
+
+    private void insert(List<MongoTemporaryAccessAuditLog> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MongoTemporaryAccessAuditLog.class)
+              .insert(batch)
+              .execute();
+        } catch (BulkOperationException e) {
+            var onlyDuplicates = e.getErrors().stream()
+              .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        flusher.shutdown();
+        if (flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+            flush();
+        } else {
+            log.warn("Audit flusher did not finish within shutdown timeout, queued documents stay in the write-ahead log");
+        }
+        writeAheadLog.close();
+    }
+}
@@ -0,0 +1,58 @@
+package pl.pw.cyber.dbaccess.adapters.mongo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Maintains the indexes of the audit log collection.
+ * <p>
+ * Expiry lookups always filter on {@code revoked: false} and page by {@code (expiresAt, _id)},
+ * so a single compound index restricted to not revoked entries serves them, and stays small because
+ * revoked entries - the vast majority over time - are not indexed at all. The former single-field
+ * {@code expiresAt} and {@code revoked} indexes only added write overhead and are dropped.
+ */
+@Slf4j
+class MongoAuditLogIndexes {
+
+    static final String PENDING_EXPIRY_INDEX = "pending_expiresAt_id";
+    private static final Set<String> REDUNDANT_INDEXES = Set.of("expiresAt", "revoked");
+
+    private final MongoTemplate mongoTemplate;
+
+    MongoAuditLogIndexes(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    void ensureIndexes() {
+        try {
+            var indexOps = mongoTemplate.indexOps(MongoTemporaryAccessAuditLog.class);
+            indexOps.ensureIndex(pendingExpiryIndex());
+            indexOps.ensureIndex(new Index().on("grantedUsername", Sort.Direction.ASC).named("grantedUsername"));
+            indexOps.getIndexInfo().stream()
+              .map(IndexInfo::getName)
+              .filter(REDUNDANT_INDEXES::contains)
+              .forEach(name -> {
+                  log.info("Dropping redundant audit log index '{}'", name);
+                  indexOps.dropIndex(name);
+              });
+        } catch (Exception e) {
+            log.error("Failed to ensure audit log indexes: {}", e.getMessage(), e);
+        }
+    }
+
+    static Index pendingExpiryIndex() {
+        return new Index()
+          .on("expiresAt", Sort.Direction.ASC)
+          .on("_id", Sort.Direction.ASC)
+          .named(PENDING_EXPIRY_INDEX)
+          .partial(PartialIndexFilter.of(where("revoked").is(false)));
+    }
+}
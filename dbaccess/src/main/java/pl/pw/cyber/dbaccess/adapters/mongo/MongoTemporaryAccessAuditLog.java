@@ -1,25 +1,45 @@
 package pl.pw.cyber.dbaccess.adapters.mongo;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
-@Document("temporaryAccessAuditLogs")
+/**
+ * Audit log document. All its indexes, including the expiry lookup index, are managed by
+ * {@link MongoAuditLogIndexes}, not by per-field annotations.
+ */
+@Document(MongoTemporaryAccessAuditLog.COLLECTION)
 record MongoTemporaryAccessAuditLog(
   @Id
   String id,
   String requestedByUsername,
-  @Indexed
   String grantedUsername,
   String targetDatabase,
   String permissionLevel,
   Instant grantedAt,
-  @Indexed
   Instant expiresAt,
-  @Indexed
-  boolean revoked
+  boolean revoked,
+  Instant revokedAt,
+  String leaseOwner,
+  Instant leaseExpiresAt
 ) {
 
+    static final String COLLECTION = "temporaryAccessAuditLogs";
+
+    MongoTemporaryAccessAuditLog withId(String id) {
+        return new MongoTemporaryAccessAuditLog(
+          id,
+          requestedByUsername,
+          grantedUsername,
+          targetDatabase,
+          permissionLevel,
+          grantedAt,
+          expiresAt,
+          revoked,
+          revokedAt,
+          leaseOwner,
+          leaseExpiresAt
+        );
+    }
 }
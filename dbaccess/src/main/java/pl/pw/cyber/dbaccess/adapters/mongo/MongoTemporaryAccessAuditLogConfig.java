@@ -1,16 +1,54 @@
 package pl.pw.cyber.dbaccess.adapters.mongo;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLogRepository;
 
+import java.io.IOException;
+
 @Configuration
+@ConditionalOnProperty(prefix = "dbaccess.audit", name = "store", havingValue = "mongo", matchIfMissing = true)
+@EnableConfigurationProperties(AsyncAuditWriteProperties.class)
 class MongoTemporaryAccessAuditLogConfig {
 
+    private final MongoTemplate mongoTemplate;
+
+    MongoTemporaryAccessAuditLogConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
     @Bean
-    TemporaryAccessAuditLogRepository mongoTemporaryAccessAuditLogRepository(
-      SpringDataMongoAuditLogRepository repository
-    ) {
-        return new MongoTemporaryAccessAuditLogRepository(repository);
+    TemporaryAccessAuditLogRepository mongoTemporaryAccessAuditLogRepository(AuditLogWriter auditLogWriter) {
+        return new MongoTemporaryAccessAuditLogRepository(auditLogWriter, mongoTemplate);
+    }
+
+    @Bean
+    AuditLogWriter auditLogWriter(
+      SpringDataMongoAuditLogRepository repository,
+      AsyncAuditWriteProperties properties,
+      MeterRegistry meterRegistry
+    ) throws IOException {
+        if (!properties.enabled()) {
+            return repository::save;
+        }
+        return new BatchingAuditLogWriter(
+          mongoTemplate,
+          new AuditWriteAheadLog(properties.walDirectory()),
+          properties.queueCapacity(),
+          properties.batchSize(),
+          properties.flushInterval(),
+          meterRegistry
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void ensureAuditLogIndexes() {
+        new MongoAuditLogIndexes(mongoTemplate).ensureIndexes();
     }
 }
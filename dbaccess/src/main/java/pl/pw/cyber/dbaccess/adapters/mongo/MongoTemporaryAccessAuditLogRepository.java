@@ -1,33 +1,142 @@
 package pl.pw.cyber.dbaccess.adapters.mongo;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import pl.pw.cyber.dbaccess.domain.AuditLogCursor;
 import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog;
 import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLogRepository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 class MongoTemporaryAccessAuditLogRepository implements TemporaryAccessAuditLogRepository {
 
-    private final SpringDataMongoAuditLogRepository repository;
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Direction.ASC, "expiresAt", "id");
+
+    private final AuditLogWriter writer;
+    private final MongoTemplate mongoTemplate;
 
-    MongoTemporaryAccessAuditLogRepository(SpringDataMongoAuditLogRepository auditLogRepository) {
-        this.repository = auditLogRepository;
+    MongoTemporaryAccessAuditLogRepository(AuditLogWriter writer, MongoTemplate mongoTemplate) {
+        this.writer = writer;
+        this.mongoTemplate = mongoTemplate;
     }
 
     @Override
     public void logTemporaryAccess(TemporaryAccessAuditLog temporaryAccessAuditLog) {
         var mongoDoc = mapToMongoDocument(temporaryAccessAuditLog);
-        repository.save(mongoDoc);
+        writer.write(mongoDoc);
+    }
+
+    /**
+     * Claims in three round trips regardless of {@code limit}: candidate ids are read first, then leased
+     * with a single update that re-checks the lease of every document, and the ones actually leased
+     * by this call are read back.
+     */
+    @Override
+    public List<TemporaryAccessAuditLog> claimExpired(
+      Instant expiredBefore,
+      Instant now,
+      String owner,
+      Instant leaseUntil,
+      int limit
+    ) {
+        var candidates = Query.query(claimable(expiredBefore, now)).with(KEYSET_ORDER).limit(limit);
+        candidates.fields().include("id");
+        var ids = mongoTemplate.find(candidates, MongoTemporaryAccessAuditLog.class).stream()
+          .map(MongoTemporaryAccessAuditLog::id)
+          .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        mongoTemplate.updateMulti(
+          Query.query(where("id").in(ids).andOperator(claimable(expiredBefore, now))),
+          new Update().set("leaseOwner", owner).set("leaseExpiresAt", leaseUntil),
+          MongoTemporaryAccessAuditLog.class
+        );
+
+        var claimed = Query.query(where("id").in(ids).and("leaseOwner").is(owner).and("leaseExpiresAt").is(leaseUntil))
+          .with(KEYSET_ORDER);
+        claimed.fields().exclude("grantedAt", "revokedAt", "leaseOwner", "leaseExpiresAt");
+        return find(claimed);
+    }
+
+    private static Criteria claimable(Instant expiredBefore, Instant now) {
+        return where("revoked").is(false).and("expiresAt").lt(expiredBefore).orOperator(
+          where("leaseExpiresAt").is(null),
+          where("leaseExpiresAt").lte(now)
+        );
+    }
+
+    @Override
+    public List<TemporaryAccessAuditLog> findNotRevoked(AuditLogCursor after, int limit) {
+        return find(pageQuery(where("revoked").is(false), after, limit));
     }
 
+    /**
+     * Reads only {@code _id} and {@code expiresAt}, which the partial expiry index covers.
+     */
     @Override
-    public List<TemporaryAccessAuditLog> findExpiredAndNotRevoked(Instant now) {
-        return repository.findByExpiresAtBeforeAndRevokedFalse(now).stream()
+    public List<AuditLogCursor> findNotRevokedExpiries(AuditLogCursor after, int limit) {
+        var query = pageQuery(where("revoked").is(false), after, limit);
+        query.fields().include("expiresAt");
+        return mongoTemplate.find(query, MongoTemporaryAccessAuditLog.class).stream()
+          .map(doc -> new AuditLogCursor(doc.expiresAt(), doc.id()))
+          .toList();
+    }
+
+    @Override
+    public void markRevoked(String id, Instant revokedAt) {
+        mongoTemplate.updateFirst(notRevoked(id), revoked(revokedAt), MongoTemporaryAccessAuditLog.class);
+    }
+
+    @Override
+    public void markRevoked(Collection<String> ids, Instant revokedAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        var bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MongoTemporaryAccessAuditLog.class);
+        var update = revoked(revokedAt);
+        ids.forEach(id -> bulk.updateOne(notRevoked(id), update));
+        bulk.execute();
+    }
+
+    private static Query notRevoked(String id) {
+        return Query.query(where("id").is(id).and("revoked").is(false));
+    }
+
+    private static Update revoked(Instant revokedAt) {
+        return new Update()
+          .set("revoked", true)
+          .set("revokedAt", revokedAt)
+          .unset("leaseOwner")
+          .unset("leaseExpiresAt");
+    }
+
+    private static Query pageQuery(Criteria criteria, AuditLogCursor after, int limit) {
+        if (after != null) {
+            criteria.orOperator(
+              where("expiresAt").gt(after.expiresAt()),
+              where("expiresAt").is(after.expiresAt()).and("id").gt(after.id())
+            );
+        }
+        return Query.query(criteria).with(KEYSET_ORDER).limit(limit);
+    }
+
+    private List<TemporaryAccessAuditLog> find(Query query) {
+        return mongoTemplate.find(query, MongoTemporaryAccessAuditLog.class).stream()
           .map(MongoTemporaryAccessAuditLogRepository::mapToDomain)
           .toList();
     }
 
-    private static MongoTemporaryAccessAuditLog mapToMongoDocument(TemporaryAccessAuditLog domain) {
+    static MongoTemporaryAccessAuditLog mapToMongoDocument(TemporaryAccessAuditLog domain) {
         return new MongoTemporaryAccessAuditLog(
           domain.id(),
           domain.requestedByUsername(),
@@ -36,11 +145,14 @@ class MongoTemporaryAccessAuditLogRepository implements TemporaryAccessAuditLogR
           domain.permissionLevel(),
           domain.grantedAt(),
           domain.expiresAt(),
-          domain.revoked()
+          domain.revoked(),
+          null,
+          null,
+          null
         );
     }
 
-    private static TemporaryAccessAuditLog mapToDomain(MongoTemporaryAccessAuditLog doc) {
+    static TemporaryAccessAuditLog mapToDomain(MongoTemporaryAccessAuditLog doc) {
         return TemporaryAccessAuditLog.builder()
           .withId(doc.id())
           .withRequestedByUsername(doc.requestedByUsername())
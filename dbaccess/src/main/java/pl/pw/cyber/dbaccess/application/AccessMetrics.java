@@ -0,0 +1,220 @@
+package pl.pw.cyber.dbaccess.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider;
+import pl.pw.cyber.dbaccess.domain.PermissionLevel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Grant and revocation counters and pipeline stage timers with bounded cardinality.
+ * <p>
+ * Counters are tagged by database, permission level and, for grants, a TTL bucket, never by principal.
+ * Access requests naming a database that is not resolvable are counted as {@value #UNKNOWN}, so requests
+ * for arbitrary names cannot create new series. Revocations come from the audit log, which only holds
+ * databases access was granted to, and keep their database name. Counters of configured databases are
+ * registered at startup, those of databases added later on first use; after that, counting is an array
+ * lookup and a single increment.
+ * <p>
+ * Every {@link Stage} of granting and revoking access is timed per database with a percentile histogram
+ * and the configured SLO boundaries, so latency quantiles can be aggregated across instances.
+ * <p>
+ * Per-principal detail is opt-in through {@link TopPrincipals}, which tracks only the most active ones.
+ */
+class AccessMetrics {
+
+    static final String UNKNOWN = "unknown";
+    private static final PermissionLevel[] LEVELS = PermissionLevel.values();
+    private static final Stage[] STAGES = Stage.values();
+
+    private final MeterRegistry meterRegistry;
+    private final DatabaseConfigurationProvider databases;
+    private final Duration[] ttlBounds;
+    private final String[] ttlLabels;
+    private final Duration[] latencySlos;
+    private final TopPrincipals topPrincipals;
+    private final ConcurrentMap<String, DatabaseCounters> counters = new ConcurrentHashMap<>();
+    private final DatabaseCounters unknownDatabase;
+
+    AccessMetrics(
+      MeterRegistry meterRegistry,
+      DatabaseConfigurationProvider databases,
+      List<Duration> ttlBuckets,
+      List<Duration> latencySlos,
+      int topPrincipals
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.databases = databases;
+        this.ttlBounds = ttlBuckets.stream().sorted().distinct().toArray(Duration[]::new);
+        this.ttlLabels = ttlLabels(ttlBounds);
+        this.latencySlos = latencySlos.stream().sorted().distinct().toArray(Duration[]::new);
+        this.topPrincipals = topPrincipals > 0 ? new TopPrincipals(topPrincipals, meterRegistry) : null;
+        this.unknownDatabase = new DatabaseCounters(UNKNOWN);
+        databases.databaseNames().forEach(name -> counters.put(name, new DatabaseCounters(name)));
+    }
+
+    void accessGranted(String database, PermissionLevel level, Duration ttl, String requestedBy) {
+        requestedCounters(database).granted[level.ordinal()][ttlBucket(ttl)].increment();
+        if (topPrincipals != null) {
+            topPrincipals.record(requestedBy);
+        }
+    }
+
+    void accessFailed(String database, PermissionLevel level, Duration ttl) {
+        requestedCounters(database).failed[level.ordinal()][ttlBucket(ttl)].increment();
+    }
+
+    void revoked(String database, String permissionLevel) {
+        grantedCounters(database).revoked[levelIndex(permissionLevel)].increment();
+    }
+
+    void revokeFailed(String database) {
+        grantedCounters(database).revokeFailed.increment();
+    }
+
+    /**
+     * Timer of a pipeline stage in the given database. Grant stages count databases that are not resolvable
+     * as {@value #UNKNOWN}, like the grant counters.
+     */
+    Timer stageTimer(Stage stage, String database) {
+        var databaseCounters = stage == Stage.REVOKE ? grantedCounters(database) : requestedCounters(database);
+        return databaseCounters.stages[stage.ordinal()];
+    }
+
+    private DatabaseCounters requestedCounters(String database) {
+        if (database == null) {
+            return unknownDatabase;
+        }
+        var existing = counters.get(database);
+        if (existing != null) {
+            return existing;
+        }
+        if (!databases.isResolvable(database)) {
+            return unknownDatabase;
+        }
+        return counters.computeIfAbsent(database, DatabaseCounters::new);
+    }
+
+    private DatabaseCounters grantedCounters(String database) {
+        if (database == null) {
+            return unknownDatabase;
+        }
+        var existing = counters.get(database);
+        return existing != null ? existing : counters.computeIfAbsent(database, DatabaseCounters::new);
+    }
+
+    private int ttlBucket(Duration ttl) {
+        for (int i = 0; i < ttlBounds.length; i++) {
+            if (ttl.compareTo(ttlBounds[i]) <= 0) {
+                return i;
+            }
+        }
+        return ttlBounds.length;
+    }
+
+    /**
+     * Index of a permission level stored as text in the audit log; unrecognized levels share the last slot.
+     */
+    private static int levelIndex(String permissionLevel) {
+        for (var level : LEVELS) {
+            if (level.name().equals(permissionLevel)) {
+                return level.ordinal();
+            }
+        }
+        return LEVELS.length;
+    }
+
+    private static String[] ttlLabels(Duration[] bounds) {
+        var labels = new String[bounds.length + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            labels[i] = "le_" + format(bounds[i]);
+        }
+        labels[bounds.length] = bounds.length == 0 ? "any" : "gt_" + format(bounds[bounds.length - 1]);
+        return labels;
+    }
+
+    private static String format(Duration duration) {
+        if (duration.toSecondsPart() != 0 || duration.isZero()) {
+            return duration.toSeconds() + "s";
+        }
+        if (duration.toMinutes() % 60 != 0) {
+            return duration.toMinutes() + "m";
+        }
+        return duration.toHours() + "h";
+    }
+
+    enum Stage {
+        CREDENTIALS("credentials"),
+        CREATE_USER("create_user"),
+        AUDIT_WRITE("audit_write"),
+        REVOKE("revoke");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    private final class DatabaseCounters {
+        private final Counter[][] granted;
+        private final Counter[][] failed;
+        private final Counter[] revoked;
+        private final Counter revokeFailed;
+        private final Timer[] stages;
+
+        private DatabaseCounters(String database) {
+            this.granted = new Counter[LEVELS.length][ttlLabels.length];
+            this.failed = new Counter[LEVELS.length][ttlLabels.length];
+            for (var level : LEVELS) {
+                for (int bucket = 0; bucket < ttlLabels.length; bucket++) {
+                    granted[level.ordinal()][bucket] = accessCounter("access_success_total", database, level.name(), ttlLabels[bucket]);
+                    failed[level.ordinal()][bucket] = accessCounter("access_failed_total", database, level.name(), ttlLabels[bucket]);
+                }
+            }
+            this.revoked = new Counter[LEVELS.length + 1];
+            for (var level : LEVELS) {
+                revoked[level.ordinal()] = revokeCounter(database, level.name());
+            }
+            revoked[LEVELS.length] = revokeCounter(database, UNKNOWN);
+            this.revokeFailed = Counter.builder("revoke_failed_total")
+              .tag("database", database)
+              .register(meterRegistry);
+            this.stages = new Timer[STAGES.length];
+            for (var stage : STAGES) {
+                stages[stage.ordinal()] = stageTimer(database, stage);
+            }
+        }
+
+        private Timer stageTimer(String database, Stage stage) {
+            return Timer.builder("access_stage_duration")
+              .tag("database", database)
+              .tag("stage", stage.label)
+              .publishPercentileHistogram()
+              .serviceLevelObjectives(latencySlos)
+              .minimumExpectedValue(Duration.ofMillis(1))
+              .maximumExpectedValue(Duration.ofSeconds(30))
+              .register(meterRegistry);
+        }
+
+        private Counter accessCounter(String name, String database, String permission, String ttl) {
+            return Counter.builder(name)
+              .tag("database", database)
+              .tag("permission", permission)
+              .tag("ttl", ttl)
+              .register(meterRegistry);
+        }
+
+        private Counter revokeCounter(String database, String permission) {
+            return Counter.builder("revoke_success_total")
+              .tag("database", database)
+              .tag("permission", permission)
+              .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package pl.pw.cyber.dbaccess.application;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Shape of the grant and revocation metrics.
+ *
+ * @param ttlBuckets    upper bounds of the buckets grant durations are counted in; longer grants fall into
+ *                      one overflow bucket
+ * @param latencySlos   latency objectives published as histogram buckets of the grant and revoke stage timers
+ * @param topPrincipals number of most active principals whose grants are counted individually;
+ *                      0 disables per-principal counting
+ */
+@ConfigurationProperties(prefix = "dbaccess.metrics")
+record AccessMetricsProperties(
+  @DefaultValue({"5m", "15m", "30m", "1h"}) List<Duration> ttlBuckets,
+  @DefaultValue({"10ms", "50ms", "100ms", "250ms", "500ms", "1s", "2s", "5s"}) List<Duration> latencySlos,
+  @DefaultValue("0") int topPrincipals
+) {}
@@ -1,31 +1,88 @@
 package pl.pw.cyber.dbaccess.application;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import pl.pw.cyber.dbaccess.domain.DatabaseAccessProvider;
+import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider;
 import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLogRepository;
 import pl.pw.cyber.dbaccess.domain.UserCredentialsGenerator;
 
 import java.time.Clock;
+import java.util.UUID;
 
 @Configuration
+@EnableConfigurationProperties({RevocationProperties.class, AccessMetricsProperties.class})
 class ApplicationConfig {
 
     @Bean
     TemporaryDbAccessService temporaryDbAccessService(
       Clock clock,
-      MeterRegistry meterRegistry,
+      SweepMetrics sweepMetrics,
+      AccessMetrics accessMetrics,
       UserCredentialsGenerator userCredentialsGenerator,
       DatabaseAccessProvider databaseAccessProvider,
-      TemporaryAccessAuditLogRepository accessAuditLogRepository
+      TemporaryAccessAuditLogRepository accessAuditLogRepository,
+      RevocationExecutor revocationExecutor,
+      ExpiryTimer expiryTimer,
+      RevocationProperties revocationProperties
     ) {
         return new TemporaryDbAccessService(
           clock,
-          meterRegistry,
+          sweepMetrics,
+          accessMetrics,
           userCredentialsGenerator,
           databaseAccessProvider,
-          accessAuditLogRepository
+          accessAuditLogRepository,
+          revocationExecutor,
+          expiryTimer,
+          revocationProperties.pageSize(),
+          revocationProperties.batchSize(),
+          revocationProperties.leaseDuration(),
+          instanceId(revocationProperties),
+          revocationProperties.cleanupDelay()
+        );
+    }
+
+    private static String instanceId(RevocationProperties properties) {
+        if (properties.instanceId() != null && !properties.instanceId().isBlank()) {
+            return properties.instanceId();
+        }
+        return UUID.randomUUID().toString();
+    }
+
+    @Bean
+    AccessMetrics accessMetrics(
+      MeterRegistry meterRegistry,
+      DatabaseConfigurationProvider databaseConfigurationProvider,
+      AccessMetricsProperties properties
+    ) {
+        return new AccessMetrics(
+          meterRegistry,
+          databaseConfigurationProvider,
+          properties.ttlBuckets(),
+          properties.latencySlos(),
+          properties.topPrincipals()
+        );
+    }
+
+    @Bean
+    SweepMetrics sweepMetrics(MeterRegistry meterRegistry, Clock clock) {
+        return new SweepMetrics(meterRegistry, clock);
+    }
+
+    @Bean
+    ExpiryTimer expiryTimer(MeterRegistry meterRegistry, RevocationProperties properties) {
+        return new ExpiryTimer(meterRegistry, properties.expiryResolution());
+    }
+
+    @Bean
+    RevocationExecutor revocationExecutor(RevocationProperties properties, MeterRegistry meterRegistry) {
+        return new RevocationExecutor(
+          properties.maxConcurrency(),
+          properties.maxConcurrencyPerDatabase(),
+          meterRegistry
         );
     }
 
@@ -0,0 +1,66 @@
+package pl.pw.cyber.dbaccess.application;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory index of upcoming grant expirations with a configurable resolution, one second by default.
+ * <p>
+ * Expirations are grouped into slots of the resolution kept in expiry order, so registering a grant and
+ * checking whether anything is due are both O(log n) in the number of distinct slots, which is
+ * bounded by the maximum grant TTL. An expiration becomes due at the end of its slot, so a coarser
+ * resolution trades revocation delay for fewer, larger sweeps. The timer only answers "is something due?" - the actual revocation
+ * still goes through the audit store, so a missed or duplicated slot never revokes the wrong grant.
+ */
+class ExpiryTimer {
+
+    private final ConcurrentNavigableMap<Long, Long> slots = new ConcurrentSkipListMap<>();
+    private final LongAdder pending = new LongAdder();
+    private final long resolutionSeconds;
+
+    ExpiryTimer(MeterRegistry meterRegistry) {
+        this(meterRegistry, Duration.ofSeconds(1));
+    }
+
+    ExpiryTimer(MeterRegistry meterRegistry, Duration resolution) {
+        this.resolutionSeconds = Math.max(1, resolution.toSeconds());
+        Gauge.builder("revoke_pending_expirations", pending, LongAdder::sum)
+          .description("Grant expirations registered in the in-memory expiry timer")
+          .register(meterRegistry);
+    }
+
+    void register(Instant expiresAt) {
+        slots.merge(slotOf(expiresAt), 1L, Long::sum);
+        pending.increment();
+    }
+
+    /**
+     * Removes every slot that is due at {@code now}.
+     *
+     * @return {@code true} if at least one registered expiration was due
+     */
+    boolean pollDue(Instant now) {
+        var anyDue = false;
+        var head = slots.firstEntry();
+        while (head != null && head.getKey() <= now.getEpochSecond()) {
+            if (slots.remove(head.getKey(), head.getValue())) {
+                pending.add(-head.getValue());
+                anyDue = true;
+            }
+            head = slots.firstEntry();
+        }
+        return anyDue;
+    }
+
+    private long slotOf(Instant expiresAt) {
+        var seconds = expiresAt.getEpochSecond();
+        var roundedUp = expiresAt.getNano() == 0 ? seconds : seconds + 1;
+        return Math.ceilDiv(roundedUp, resolutionSeconds) * resolutionSeconds;
+    }
+}
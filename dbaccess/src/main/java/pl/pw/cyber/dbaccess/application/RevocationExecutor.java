@@ -0,0 +1,112 @@
+package pl.pw.cyber.dbaccess.application;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Runs revocations of expired access concurrently on virtual threads.
+ * <p>
+ * Concurrency is capped globally and per target database, so a large backlog on one database
+ * neither starves the others nor floods a single Postgres instance with DDL.
+ * Every batch is revoked in its own task, so a failure of one task does not affect the rest.
+ */
+@Slf4j
+class RevocationExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("revoke-worker-", 0).factory()
+    );
+    private final Semaphore globalPermits;
+    private final int maxConcurrencyPerDatabase;
+    private final ConcurrentMap<String, Semaphore> databasePermits = new ConcurrentHashMap<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    RevocationExecutor(int maxConcurrency, int maxConcurrencyPerDatabase, MeterRegistry meterRegistry) {
+        this.globalPermits = new Semaphore(maxConcurrency);
+        this.maxConcurrencyPerDatabase = maxConcurrencyPerDatabase;
+        Gauge.builder("revoke_backlog", backlog, AtomicInteger::get)
+          .description("Expired entries queued or being revoked by the current sweep")
+          .register(meterRegistry);
+    }
+
+    /**
+     * Splits the entries into batches of at most {@code batchSize} entries of the same target database,
+     * revokes the batches within the concurrency limits and blocks until every batch has finished.
+     */
+    void revokeInBatches(
+      Collection<TemporaryAccessAuditLog> entries,
+      int batchSize,
+      Consumer<List<TemporaryAccessAuditLog>> revocation
+    ) {
+        backlog.addAndGet(entries.size());
+        var futures = new ArrayList<Future<?>>();
+        var byDatabase = entries.stream().collect(Collectors.groupingBy(TemporaryAccessAuditLog::targetDatabase));
+        for (var databaseEntries : byDatabase.entrySet()) {
+            var database = databaseEntries.getKey();
+            var pending = databaseEntries.getValue();
+            for (var from = 0; from < pending.size(); from += batchSize) {
+                var batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+                futures.add(executor.submit(() -> runWithinLimits(database, batch.size(), () -> revocation.accept(batch))));
+            }
+        }
+        for (var future : futures) {
+            await(future);
+        }
+    }
+
+    private void runWithinLimits(String targetDatabase, int entries, Runnable revocation) {
+        // Wait for the database permit first, so a busy database does not hold global permits while queueing.
+        var permits = databasePermits.computeIfAbsent(
+          targetDatabase, database -> new Semaphore(maxConcurrencyPerDatabase)
+        );
+        permits.acquireUninterruptibly();
+        try {
+            globalPermits.acquireUninterruptibly();
+            try {
+                revocation.run();
+            } finally {
+                globalPermits.release();
+            }
+        } finally {
+            permits.release();
+            backlog.addAndGet(-entries);
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            log.error("Revocation task failed unexpectedly", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for revocations to finish");
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Revocation tasks did not finish within shutdown timeout");
+            executor.shutdownNow();
+        }
+    }
+}
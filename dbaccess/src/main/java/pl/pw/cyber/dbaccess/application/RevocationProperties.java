@@ -0,0 +1,37 @@
+package pl.pw.cyber.dbaccess.application;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Concurrency limits of the expired access sweep.
+ *
+ * @param maxConcurrency            revocations running at the same time across all target databases
+ * @param maxConcurrencyPerDatabase revocations running at the same time against a single target database
+ * @param pageSize                  expired entries loaded from the audit store at once; bounds sweep memory
+ * @param batchSize                 expired users of one target database revoked together in one script
+ * @param leaseDuration             how long claimed entries are reserved for this instance; must exceed the time
+ *                                  needed to revoke a page, since a failed revocation is retried only after it
+ * @param instanceId                lease owner identifying this instance; a random id when not set
+ * @param cleanupDelay              how long after expiry a grant is revoked; expirations within this window are
+ *                                  revoked together. Above zero, the target database must reject expired
+ *                                  credentials on its own, as PostgreSQL does with {@code VALID UNTIL}; that only
+ *                                  blocks new logins, so sessions opened before expiry keep their privileges for
+ *                                  up to this long after it
+ * @param expiryResolution          granularity of the in-memory expiry timer; an expiration is noticed at the end
+ *                                  of its slot, so this bounds how late a due grant starts being revoked
+ */
+@ConfigurationProperties(prefix = "dbaccess.revocation")
+record RevocationProperties(
+  @DefaultValue("16") int maxConcurrency,
+  @DefaultValue("4") int maxConcurrencyPerDatabase,
+  @DefaultValue("500") int pageSize,
+  @DefaultValue("100") int batchSize,
+  @DefaultValue("5m") Duration leaseDuration,
+  String instanceId,
+  @DefaultValue("0s") Duration cleanupDelay,
+  @DefaultValue("1s") Duration expiryResolution
+) {
+}
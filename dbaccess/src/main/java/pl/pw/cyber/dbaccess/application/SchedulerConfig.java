@@ -1,8 +1,10 @@
 package pl.pw.cyber.dbaccess.application;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
@@ -25,6 +27,10 @@ class SchedulerConfig {
         return new ProdRevokeScheduler(temporaryDbAccessService);
     }
 
+    /**
+     * Revokes access shortly after it expires using the in-memory {@link ExpiryTimer},
+     * and keeps a low-frequency full sweep as a safety net for anything the timer missed.
+     */
     @RequiredArgsConstructor
     private static class ProdRevokeScheduler implements RevokeScheduler {
 
@@ -35,6 +41,16 @@ class SchedulerConfig {
         public void schedule() {
             service.revokeExpiredAccess();
         }
+
+        @Scheduled(fixedDelayString = "${dbaccess.expiry-tick-ms}")
+        public void revokeDueAccess() {
+            service.revokeDueAccess();
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void rehydrate() {
+            service.rehydrateExpiryTimer();
+        }
     }
 
 }
@@ -0,0 +1,95 @@
+package pl.pw.cyber.dbaccess.application;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Timings of the expired access sweep and how far revocation lags behind expiry.
+ * <p>
+ * A sweep is timed as a whole and per phase: claiming expired entries from the audit store, revoking them
+ * in the target databases and marking them revoked. The oldest-overdue gauge reports how long ago the
+ * oldest grant this instance knows to be expired but not revoked has expired. An entry is known from the
+ * moment this instance claims it until it is revoked or its lease runs out, after which whoever claims it
+ * next reports it, so entries that failed to revoke keep counting between sweeps.
+ */
+class SweepMetrics {
+
+    private static final Duration MAX_EXPECTED_PHASE = Duration.ofMinutes(10);
+
+    private final Clock clock;
+    private final Timer sweep;
+    private final Timer claim;
+    private final Timer revoke;
+    private final Timer markRevoked;
+    private final ConcurrentMap<String, Overdue> overdue = new ConcurrentHashMap<>();
+
+    SweepMetrics(MeterRegistry meterRegistry, Clock clock) {
+        this.clock = clock;
+        this.sweep = timer("revoke_sweep_duration", meterRegistry);
+        this.claim = timer("revoke_sweep_claim_duration", meterRegistry);
+        this.revoke = timer("revoke_sweep_revoke_duration", meterRegistry);
+        this.markRevoked = timer("revoke_sweep_mark_duration", meterRegistry);
+        Gauge.builder("revoke_oldest_overdue_seconds", this, SweepMetrics::oldestOverdueSeconds)
+          .description("Seconds since the oldest known expired but not revoked grant has expired")
+          .baseUnit("seconds")
+          .register(meterRegistry);
+    }
+
+    Timer sweep() {
+        return sweep;
+    }
+
+    Timer claim() {
+        return claim;
+    }
+
+    Timer revoke() {
+        return revoke;
+    }
+
+    Timer markRevoked() {
+        return markRevoked;
+    }
+
+    /**
+     * Tracks expired entries claimed by this instance until {@code leasedUntil}.
+     */
+    void claimed(Collection<TemporaryAccessAuditLog> entries, Instant leasedUntil) {
+        entries.forEach(entry -> overdue.put(entry.id(), new Overdue(entry.expiresAt(), leasedUntil)));
+    }
+
+    void revoked(Collection<String> ids) {
+        ids.forEach(overdue::remove);
+    }
+
+    private double oldestOverdueSeconds() {
+        var now = clock.instant();
+        overdue.values().removeIf(entry -> !entry.leasedUntil().isAfter(now));
+        var oldest = overdue.values().stream()
+          .map(Overdue::expiresAt)
+          .min(Instant::compareTo);
+        return oldest
+          .map(expiresAt -> Math.max(0, Duration.between(expiresAt, now).toMillis() / 1000.0))
+          .orElse(0.0);
+    }
+
+    private record Overdue(Instant expiresAt, Instant leasedUntil) {
+    }
+
+    private static Timer timer(String name, MeterRegistry meterRegistry) {
+        return Timer.builder(name)
+          .publishPercentileHistogram()
+          .minimumExpectedValue(Duration.ofMillis(1))
+          .maximumExpectedValue(MAX_EXPECTED_PHASE)
+          .register(meterRegistry);
+    }
+}
@@ -1,36 +1,57 @@
 package pl.pw.cyber.dbaccess.application;
 
-import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import pl.pw.cyber.dbaccess.application.AccessMetrics.Stage;
 import pl.pw.cyber.dbaccess.application.commands.GrantTemporaryAccessCommand;
 import pl.pw.cyber.dbaccess.application.results.TemporaryAccessGranted;
 import pl.pw.cyber.dbaccess.common.result.Result;
+import pl.pw.cyber.dbaccess.domain.AuditLogCursor;
 import pl.pw.cyber.dbaccess.domain.CreateTemporaryUserRequest;
 import pl.pw.cyber.dbaccess.domain.DatabaseAccessProvider;
+import pl.pw.cyber.dbaccess.domain.RevocationOutcome;
 import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog;
 import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLogRepository;
 import pl.pw.cyber.dbaccess.domain.TemporaryCredentials;
 import pl.pw.cyber.dbaccess.domain.UserCredentialsGenerator;
 
 import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
 public class TemporaryDbAccessService {
 
     private final Clock clock;
-    private final MeterRegistry meterRegistry;
+    private final SweepMetrics sweepMetrics;
+    private final AccessMetrics accessMetrics;
     private final UserCredentialsGenerator credentialsGenerator;
     private final DatabaseAccessProvider databaseAccessProvider;
     private final TemporaryAccessAuditLogRepository auditLogRepository;
+    private final RevocationExecutor revocationExecutor;
+    private final ExpiryTimer expiryTimer;
+    private final int sweepPageSize;
+    private final int revokeBatchSize;
+    private final Duration leaseDuration;
+    private final String instanceId;
+    private final Duration cleanupDelay;
+    private final ReentrantLock sweepLock = new ReentrantLock();
 
     public Result<TemporaryAccessGranted> accessRequest(GrantTemporaryAccessCommand command) {
         return Result.of(() -> {
               log.info("Granting temporary access to database '{}' for user '{}'", command.targetDatabase(), command.requestedBy());
 
+              var grantedAt = clock.instant();
+              var expiresAt = grantedAt.plus(command.duration());
               var credentials = createTemporaryUser(command);
-              var auditLog = logAccessGrant(command, credentials.username());
+              var auditLog = logAccessGrant(command, credentials.username(), grantedAt, expiresAt);
               return new TemporaryAccessGranted(
                 command.targetDatabase(),
                 credentials.username(),
@@ -39,31 +60,38 @@ public class TemporaryDbAccessService {
               );
           })
           .onSuccess(() -> {
-              countAccessSuccessTotalMetric(command);
+              accessMetrics.accessGranted(
+                command.targetDatabase(), command.permissionLevel(), command.duration(), command.requestedBy()
+              );
           })
           .onFailure(ex -> {
-              countAccessFailedTotalMetric(command);
+              accessMetrics.accessFailed(command.targetDatabase(), command.permissionLevel(), command.duration());
               return ex;
           });
     }
 
     private TemporaryCredentials createTemporaryUser(GrantTemporaryAccessCommand command) {
-        var credentials = credentialsGenerator.generate();
+        var credentials = accessMetrics.stageTimer(Stage.CREDENTIALS, command.targetDatabase())
+          .record(credentialsGenerator::generate);
         var request = CreateTemporaryUserRequest.builder()
           .username(credentials.username())
           .password(credentials.password())
           .permissionLevel(command.permissionLevel())
           .targetDatabase(command.targetDatabase())
+          .validFor(command.duration())
           .build();
-        databaseAccessProvider.createTemporaryUser(request);
+        accessMetrics.stageTimer(Stage.CREATE_USER, command.targetDatabase())
+          .record(() -> databaseAccessProvider.createTemporaryUser(request));
         log.info("Created temporary user '{}' for database '{}'", credentials.username(), command.targetDatabase());
         return credentials;
     }
 
-    private TemporaryAccessAuditLog logAccessGrant(GrantTemporaryAccessCommand command, String username) {
-        var grantedAt = clock.instant();
-        var expiresAt = grantedAt.plus(command.duration());
-
+    private TemporaryAccessAuditLog logAccessGrant(
+      GrantTemporaryAccessCommand command,
+      String username,
+      Instant grantedAt,
+      Instant expiresAt
+    ) {
         var auditLog = TemporaryAccessAuditLog.builder()
           .withRequestedByUsername(command.requestedBy())
           .withGrantedUsername(username)
@@ -74,88 +102,131 @@ public class TemporaryDbAccessService {
           .withRevoked(false)
           .build();
 
-        auditLogRepository.logTemporaryAccess(auditLog);
+        accessMetrics.stageTimer(Stage.AUDIT_WRITE, command.targetDatabase())
+          .record(() -> auditLogRepository.logTemporaryAccess(auditLog));
+        expiryTimer.register(expiresAt.plus(cleanupDelay));
         log.info("Logged access grant for user '{}' to database '{}'", username, command.targetDatabase());
         return auditLog;
     }
 
-    private void countAccessSuccessTotalMetric(GrantTemporaryAccessCommand command) {
-        meterRegistry.counter(
-          "access_success_total",
-          "database", command.targetDatabase(),
-          "permission", command.permissionLevel().name(),
-          "ttl", String.valueOf(command.duration().toMinutes()),
-          "requestedBy", command.requestedBy()
-        ).increment();
+    /**
+     * Registers expirations of all grants that are not revoked yet, so access granted
+     * before a restart is revoked on time as well.
+     */
+    public void rehydrateExpiryTimer() {
+        try {
+            var registered = 0;
+            AuditLogCursor cursor = null;
+            List<AuditLogCursor> page;
+            do {
+                page = auditLogRepository.findNotRevokedExpiries(cursor, sweepPageSize);
+                page.forEach(entry -> expiryTimer.register(entry.expiresAt().plus(cleanupDelay)));
+                registered += page.size();
+                cursor = page.isEmpty() ? cursor : page.getLast();
+            } while (page.size() == sweepPageSize);
+            log.info("Registered {} pending expirations after startup", registered);
+        } catch (Exception e) {
+            log.error("Failed to load pending expirations, relying on the periodic sweep: {}", e.getMessage(), e);
+        }
     }
 
-    private void countAccessFailedTotalMetric(GrantTemporaryAccessCommand command) {
-        meterRegistry.counter(
-          "access_failed_total",
-          "database", command.targetDatabase(),
-          "permission", command.permissionLevel().name(),
-          "ttl", String.valueOf(command.duration().toMinutes()),
-          "requestedBy", command.requestedBy()
-        ).increment();
+    /**
+     * Runs an expired access sweep if any registered grant expired since the last check.
+     */
+    public void revokeDueAccess() {
+        if (expiryTimer.pollDue(clock.instant())) {
+            revokeExpiredAccess();
+        }
     }
 
     public void revokeExpiredAccess() {
+        sweepLock.lock();
+        try {
+            sweepExpiredAccess();
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private void sweepExpiredAccess() {
         var now = clock.instant();
         log.info("Running task to revoke expired access at {}", now);
 
-        var expiredLogs = auditLogRepository.findExpiredAndNotRevoked(now);
+        // Claimed entries stay leased to this instance until revoked or the lease expires, so other
+        // instances sweep disjoint entries and failed revocations are retried only after the lease.
+        // Grants within the cleanup delay are already rejected by the target database and wait for a later sweep.
+        // A short page does not mean the sweep is done, since other instances may have claimed part of it, so
+        // claiming goes on until nothing is left. Entries claimed here stay leased beyond now, so none comes back.
+        var expiredBefore = now.minus(cleanupDelay);
+        var leaseUntil = now.plus(leaseDuration);
+        var sweep = Timer.start();
+        var revoked = 0;
+        while (true) {
+            var page = sweepMetrics.claim().record(
+              () -> auditLogRepository.claimExpired(expiredBefore, now, instanceId, leaseUntil, sweepPageSize)
+            );
+            if (page.isEmpty()) {
+                break;
+            }
+            log.info("Claimed {} expired entries", page.size());
+            sweepMetrics.claimed(page, leaseUntil);
+            var revokedIds = new ConcurrentLinkedQueue<String>();
+            var revoking = Timer.start();
+            revocationExecutor.revokeInBatches(page, revokeBatchSize, batch -> revokeAccess(batch, revokedIds));
+            revoking.stop(sweepMetrics.revoke());
+            sweepMetrics.revoked(revokedIds);
+            sweepMetrics.markRevoked().record(() -> markRevoked(revokedIds));
+            revoked += page.size();
+        }
 
-        if (expiredLogs.isEmpty()) {
+        var duration = sweep.stop(sweepMetrics.sweep());
+        if (revoked == 0) {
             log.info("No expired access to revoke.");
-            return;
+        } else {
+            log.info("Finished revoking {} expired entries in {} ms.", revoked, duration / 1_000_000);
         }
+    }
 
-        log.info("Found {} expired entries", expiredLogs.size());
-
-        for (var logEntry : expiredLogs) {
-            revokeAccess(logEntry);
+    private void markRevoked(Queue<String> revokedIds) {
+        try {
+            auditLogRepository.markRevoked(revokedIds, clock.instant());
+            log.info("Marked {} audit log entries as revoked", revokedIds.size());
+        } catch (Exception e) {
+            log.error("Failed to mark {} audit log entries as revoked: {}", revokedIds.size(), e.getMessage(), e);
         }
-
-        log.info("Finished revoking expired access.");
     }
 
-    private void revokeAccess(TemporaryAccessAuditLog logEntry) {
+    private void revokeAccess(List<TemporaryAccessAuditLog> batch, Queue<String> revokedIds) {
+        var targetDatabase = batch.getFirst().targetDatabase();
+        var entriesByUsername = batch.stream().collect(Collectors.groupingBy(TemporaryAccessAuditLog::grantedUsername));
+        log.info("Revoking access for {} users in database '{}'", entriesByUsername.size(), targetDatabase);
+
+        List<RevocationOutcome> outcomes;
+        var revokeTimer = accessMetrics.stageTimer(Stage.REVOKE, targetDatabase);
         try {
-            log.info("Revoking access for '{}' in database '{}' (ID: {})",
-              logEntry.grantedUsername(), logEntry.targetDatabase(), logEntry.id()
+            outcomes = revokeTimer.record(
+              () -> databaseAccessProvider.revokeTemporaryUsers(targetDatabase, entriesByUsername.keySet())
             );
-
-            databaseAccessProvider.revokeTemporaryUser(logEntry.grantedUsername(), logEntry.targetDatabase());
-
-            var updatedLog = logEntry.withRevoked(true);
-            auditLogRepository.logTemporaryAccess(updatedLog);
-
-            log.info("Revoked and updated audit log for '{}' (ID: {})", logEntry.grantedUsername(), logEntry.id());
-            countRevokeSuccessTotalMetric(logEntry);
-
         } catch (Exception e) {
-            log.error(
-              "Failed to revoke access for '{}' (ID: {}): {}",
-              logEntry.grantedUsername(), logEntry.id(), e.getMessage(), e
-            );
-            countRevokeFailedTotalMetric(logEntry);
+            outcomes = entriesByUsername.keySet().stream()
+              .map(username -> RevocationOutcome.failed(username, e.getMessage()))
+              .toList();
         }
-    }
 
-    private void countRevokeSuccessTotalMetric(TemporaryAccessAuditLog entry) {
-        meterRegistry.counter(
-          "revoke_success_total",
-          "database", entry.targetDatabase(),
-          "permission", entry.permissionLevel(),
-          "requestedBy", entry.requestedByUsername()
-        ).increment();
-    }
-
-    private void countRevokeFailedTotalMetric(TemporaryAccessAuditLog entry) {
-        meterRegistry.counter(
-          "revoke_failed_total",
-          "database", entry.targetDatabase(),
-          "requestedBy", entry.requestedByUsername()
-        ).increment();
+        for (var outcome : outcomes) {
+            for (var logEntry : entriesByUsername.getOrDefault(outcome.username(), List.of())) {
+                if (outcome.isRevoked()) {
+                    revokedIds.add(logEntry.id());
+                    log.info("Revoked access for '{}' (ID: {})", logEntry.grantedUsername(), logEntry.id());
+                    accessMetrics.revoked(logEntry.targetDatabase(), logEntry.permissionLevel());
+                } else {
+                    log.error(
+                      "Failed to revoke access for '{}' (ID: {}): {}",
+                      logEntry.grantedUsername(), logEntry.id(), outcome.failure()
+                    );
+                    accessMetrics.revokeFailed(logEntry.targetDatabase());
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,79 @@
+package pl.pw.cyber.dbaccess.application;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Approximate counts of grants for the most active principals, using the Space-Saving algorithm.
+ * <p>
+ * At most {@code capacity} principals are tracked, each exposed as one gauge. A principal not tracked yet
+ * replaces the least active one and inherits its count, so counts may be overestimated by at most the
+ * count of the replaced principal, but every principal with more than {@code total / capacity} grants
+ * is guaranteed to be tracked. The number of series stays bounded by {@code capacity}.
+ * <p>
+ * Slots are also kept ordered by count, so finding the least active principal and updating a count both
+ * take O(log capacity) under the lock.
+ */
+class TopPrincipals {
+
+    private final int capacity;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Slot> slots;
+    private final NavigableSet<Slot> byCount = new TreeSet<>(
+      Comparator.<Slot>comparingLong(slot -> slot.count).thenComparing(slot -> slot.principal)
+    );
+
+    TopPrincipals(int capacity, MeterRegistry meterRegistry) {
+        this.capacity = capacity;
+        this.meterRegistry = meterRegistry;
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    synchronized void record(String principal) {
+        var slot = slots.get(principal);
+        if (slot != null) {
+            byCount.remove(slot);
+            slot.count++;
+            byCount.add(slot);
+            return;
+        }
+        var count = 1L;
+        if (slots.size() >= capacity) {
+            var leastActive = byCount.pollFirst();
+            slots.remove(leastActive.principal);
+            meterRegistry.remove(leastActive.gauge);
+            count += leastActive.count;
+        }
+        var added = new Slot(principal, count);
+        slots.put(principal, added);
+        byCount.add(added);
+    }
+
+    synchronized Map<String, Long> counts() {
+        var counts = new HashMap<String, Long>();
+        slots.values().forEach(slot -> counts.put(slot.principal, slot.count));
+        return counts;
+    }
+
+    private final class Slot {
+        private final String principal;
+        private final Meter gauge;
+        private volatile long count;
+
+        private Slot(String principal, long count) {
+            this.principal = principal;
+            this.count = count;
+            this.gauge = Gauge.builder("access_top_principal_grants", this, slot -> slot.count)
+              .description("Approximate grants of one of the most active principals")
+              .tag("requestedBy", principal)
+              .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package pl.pw.cyber.dbaccess.common.file;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.time.Duration;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Calls back whenever a file may have changed.
+ * <p>
+ * The whole parent directory is watched, so files replaced by an atomic rename or a symlink swap
+ * (as mounted config maps are) are noticed as well. The callback runs on the watcher thread after
+ * {@code settleDelay}, once per burst of changes, and must tolerate spurious calls and files that
+ * are missing or only partially written.
+ */
+@Slf4j
+public final class FileWatcher implements AutoCloseable {
+
+    private final Path file;
+    private final Duration settleDelay;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread watcher;
+
+    public FileWatcher(Path file, Duration settleDelay, Runnable onChange) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.settleDelay = settleDelay;
+        this.onChange = onChange;
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        this.watcher = Thread.ofPlatform().name("file-watcher-" + this.file.getFileName()).daemon().start(this::watch);
+        log.info("Watching {} for changes", this.file);
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                var key = watchService.take();
+                Thread.sleep(settleDelay);
+                key.pollEvents();
+                key.reset();
+                notifyChanged();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void notifyChanged() {
+        try {
+            onChange.run();
+        } catch (RuntimeException e) {
+            log.warn("Handling change of {} failed", file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        watchService.close();
+        watcher.interrupt();
+        watcher.join();
+    }
+}
@@ -0,0 +1,17 @@
+package pl.pw.cyber.dbaccess.domain;
+
+import java.time.Instant;
+
+/**
+ * Keyset position in audit log entries ordered by {@code expiresAt}, then {@code id}.
+ * A page requested with a cursor starts right after the entry the cursor was taken from.
+ */
+public record AuditLogCursor(
+  Instant expiresAt,
+  String id
+) {
+
+    public static AuditLogCursor after(TemporaryAccessAuditLog entry) {
+        return new AuditLogCursor(entry.expiresAt(), entry.id());
+    }
+}
@@ -2,11 +2,17 @@ package pl.pw.cyber.dbaccess.domain;
 
 import lombok.Builder;
 
+import java.time.Duration;
+
+/**
+ * @param validFor how long the credentials stay valid, counted from their creation
+ */
 @Builder
 public record CreateTemporaryUserRequest(
   String username,
   String password,
   PermissionLevel permissionLevel,
-  String targetDatabase
+  String targetDatabase,
+  Duration validFor
 ) {
 }
@@ -1,8 +1,29 @@
 package pl.pw.cyber.dbaccess.domain;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 public interface DatabaseAccessProvider {
 
     void createTemporaryUser(CreateTemporaryUserRequest request);
 
     void revokeTemporaryUser(String username, String targetDatabase);
+
+    /**
+     * Revokes all given users of one target database and reports the outcome for every user.
+     * A failure to revoke one user does not prevent revoking the others.
+     */
+    default List<RevocationOutcome> revokeTemporaryUsers(String targetDatabase, Collection<String> usernames) {
+        var outcomes = new ArrayList<RevocationOutcome>(usernames.size());
+        for (var username : usernames) {
+            try {
+                revokeTemporaryUser(username, targetDatabase);
+                outcomes.add(RevocationOutcome.revoked(username));
+            } catch (Exception e) {
+                outcomes.add(RevocationOutcome.failed(username, e.getMessage()));
+            }
+        }
+        return outcomes;
+    }
 }
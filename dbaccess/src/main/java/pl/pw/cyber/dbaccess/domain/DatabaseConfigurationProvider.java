@@ -1,7 +1,16 @@
 package pl.pw.cyber.dbaccess.domain;
 
+import java.util.Set;
+
 public interface DatabaseConfigurationProvider {
     boolean isResolvable(String databaseName);
 
     ResolvedDatabase resolve(String databaseName);
+
+    /**
+     * Names of the currently resolvable databases.
+     */
+    default Set<String> databaseNames() {
+        return Set.of();
+    }
 }
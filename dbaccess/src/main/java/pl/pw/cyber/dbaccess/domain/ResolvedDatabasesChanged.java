@@ -0,0 +1,15 @@
+package pl.pw.cyber.dbaccess.domain;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published when the set of resolvable target databases changed at runtime.
+ *
+ * @param removed names of databases that can no longer be resolved
+ * @param added   databases that became resolvable or whose connection details changed
+ */
+public record ResolvedDatabasesChanged(
+  Set<String> removed,
+  List<ResolvedDatabase> added
+) {}
@@ -0,0 +1,24 @@
+package pl.pw.cyber.dbaccess.domain;
+
+/**
+ * Result of revoking a single temporary user as part of a bulk revocation.
+ *
+ * @param failure why the user could not be revoked, {@code null} when it was revoked
+ */
+public record RevocationOutcome(
+  String username,
+  String failure
+) {
+
+    public static RevocationOutcome revoked(String username) {
+        return new RevocationOutcome(username, null);
+    }
+
+    public static RevocationOutcome failed(String username, String failure) {
+        return new RevocationOutcome(username, failure);
+    }
+
+    public boolean isRevoked() {
+        return failure == null;
+    }
+}
@@ -1,11 +1,45 @@
 package pl.pw.cyber.dbaccess.domain;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface TemporaryAccessAuditLogRepository {
 
     void logTemporaryAccess(TemporaryAccessAuditLog temporaryAccessAuditLog);
 
-    List<TemporaryAccessAuditLog> findExpiredAndNotRevoked(Instant now);
+    /**
+     * Leases at most {@code limit} entries expired before {@code expiredBefore} and not revoked yet to {@code owner}
+     * until {@code leaseUntil}, earliest expiry first, and returns them. Entries leased to anyone until
+     * after {@code now} are skipped, so concurrent callers never claim the same entry.
+     */
+    List<TemporaryAccessAuditLog> claimExpired(Instant expiredBefore, Instant now, String owner, Instant leaseUntil, int limit);
+
+    /**
+     * Returns at most {@code limit} entries not revoked yet, ordered by {@code expiresAt} and {@code id},
+     * starting after {@code after} ({@code null} for the first page).
+     */
+    List<TemporaryAccessAuditLog> findNotRevoked(AuditLogCursor after, int limit);
+
+    /**
+     * Returns the keyset positions of the same entries as {@link #findNotRevoked(AuditLogCursor, int)}, for callers
+     * that only need to know when entries expire.
+     */
+    default List<AuditLogCursor> findNotRevokedExpiries(AuditLogCursor after, int limit) {
+        return findNotRevoked(after, limit).stream()
+          .map(AuditLogCursor::after)
+          .toList();
+    }
+
+    /**
+     * Marks the entry as revoked at {@code revokedAt} without touching its other fields.
+     * Entries already marked as revoked keep their original revocation time.
+     */
+    void markRevoked(String id, Instant revokedAt);
+
+    /**
+     * Marks all given entries as revoked in a single round trip, with the same semantics as
+     * {@link #markRevoked(String, Instant)}.
+     */
+    void markRevoked(Collection<String> ids, Instant revokedAt);
 }
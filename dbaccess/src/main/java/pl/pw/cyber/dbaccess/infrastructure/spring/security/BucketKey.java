@@ -0,0 +1,7 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+/**
+ * Identifies the bucket of one subject under one policy.
+ */
+record BucketKey(RateLimitPolicy policy, String subject) {
+}
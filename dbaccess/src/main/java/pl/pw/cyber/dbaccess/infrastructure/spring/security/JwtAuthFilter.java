@@ -1,5 +1,6 @@
 package pl.pw.cyber.dbaccess.infrastructure.spring.security;
 
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -32,14 +33,14 @@ class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtTokenVerifier jwtTokenVerifier;
     private final UserRepository userRepository;
-    private final MeterRegistry meterRegistry;
+    private final Counter userNotInAllowlist;
     private static final List<SimpleGrantedAuthority> DEFAULT_ROLE = List.of(new SimpleGrantedAuthority("ROLE_REQUESTER"));
 
     @Autowired
     JwtAuthFilter(JwtTokenVerifier jwtTokenVerifier, UserRepository userRepository, MeterRegistry meterRegistry) {
         this.jwtTokenVerifier = jwtTokenVerifier;
         this.userRepository = userRepository;
-        this.meterRegistry = meterRegistry;
+        this.userNotInAllowlist = meterRegistry.counter("jwt_user_not_in_allowlist_total");
     }
 
     @Override
@@ -60,7 +61,7 @@ class JwtAuthFilter extends OncePerRequestFilter {
                 if (userOpt.isEmpty()) {
                     log.warn("User: {} not found", username);
                     request.setAttribute(AUTHORIZATION_FAILURE_ATTRIBUTE, true);
-                    meterRegistry.counter("jwt_user_not_in_allowlist_total", "subject", username).increment();
+                    userNotInAllowlist.increment();
                     response.sendError(HttpServletResponse.SC_FORBIDDEN, "Forbidden");
                     return;
                 }
@@ -18,9 +18,10 @@ class JwtTokenConfig {
     JwtTokenVerifier jwtTokenVerifier(
       Clock clock,
       JwtKeyProperties props,
+      JwtVerifierProperties verifierProperties,
       MeterRegistry meterRegistry
     ) throws Exception {
-        return new JwtTokenVerifier(clock, loadPublicKey(props.publicKey()), meterRegistry);
+        return new JwtTokenVerifier(clock, loadPublicKey(props.publicKey()), meterRegistry, verifierProperties.cacheSize());
     }
 
     @Bean
@@ -1,53 +1,111 @@
 package pl.pw.cyber.dbaccess.infrastructure.spring.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.interfaces.ECPublicKey;
 import java.text.ParseException;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Date;
-
+import java.util.HexFormat;
+
+/**
+ * Verifies ES256 signed tokens and their claims.
+ * <p>
+ * Clients reuse a token for several calls, so successfully verified tokens are cached by the SHA-256
+ * of their compact serialization until they expire. A cache hit skips parsing and signature
+ * verification, but expiry is still checked against the clock.
+ */
 @Slf4j
 class JwtTokenVerifier {
 
+    static final int DEFAULT_CACHE_SIZE = 10_000;
+
     private final Clock clock;
-    private final ECPublicKey publicKey;
-    private final MeterRegistry meterRegistry;
+    private final JWSVerifier signatureVerifier;
+    private final Cache<String, JWTClaimsSet> verifiedTokens;
+    private final Counter invalidSignature;
+    private final Counter malformed;
+    private final Counter missingSubject;
+    private final Counter ttlTooLong;
+    private final Counter invalidIssuer;
+    private final Counter invalidAudience;
+    private final Counter expired;
 
     private static final Duration MAX_TOKEN_TTL = Duration.ofMinutes(5);
 
     static final String ISSUER = "dbaccess-api";
     static final String AUDIENCE = "dbaccess-client";
 
-    JwtTokenVerifier(Clock clock, ECPublicKey publicKey, MeterRegistry meterRegistry) {
+    JwtTokenVerifier(Clock clock, ECPublicKey publicKey, MeterRegistry meterRegistry) throws JOSEException {
+        this(clock, publicKey, meterRegistry, DEFAULT_CACHE_SIZE);
+    }
+
+    JwtTokenVerifier(Clock clock, ECPublicKey publicKey, MeterRegistry meterRegistry, int cacheSize) throws JOSEException {
         this.clock = clock;
-        this.publicKey = publicKey;
-        this.meterRegistry = meterRegistry;
+        this.signatureVerifier = new ECDSAVerifier(publicKey);
+        this.verifiedTokens = Caffeine.newBuilder()
+          .maximumSize(cacheSize)
+          // Keeps maintenance on the calling thread, so a cache size of 0 disables caching right away.
+          .executor(Runnable::run)
+          .expireAfter(Expiry.creating((String key, JWTClaimsSet claims) -> timeToExpiry(claims)))
+          .recordStats()
+          .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt_verified_tokens");
+        // Rejections are not tagged by subject: it is client-controlled and would make the series unbounded.
+        // The subject is logged instead.
+        this.invalidSignature = meterRegistry.counter("jwt_invalid_signature_total");
+        this.malformed = meterRegistry.counter("jwt_malformed_total");
+        this.missingSubject = meterRegistry.counter("jwt_missing_subject_total", "subject", "null_or_blank");
+        this.ttlTooLong = meterRegistry.counter("jwt_token_ttl_too_long_total");
+        this.invalidIssuer = meterRegistry.counter("jwt_invalid_issuer_total");
+        this.invalidAudience = meterRegistry.counter("jwt_invalid_audience_total");
+        this.expired = meterRegistry.counter("jwt_token_expired_total");
     }
 
     public JWTClaimsSet verify(String token) {
+        var key = cacheKey(token);
+        var cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            checkNotExpired(cached, cached.getSubject());
+            return cached;
+        }
+        var claims = verifySignatureAndClaims(token);
+        verifiedTokens.put(key, claims);
+        return claims;
+    }
+
+    private JWTClaimsSet verifySignatureAndClaims(String token) {
         try {
             var jwt = SignedJWT.parse(token);
-            if (!jwt.verify(new ECDSAVerifier(publicKey))) {
+            if (!jwt.verify(signatureVerifier)) {
                 log.error("JWT verification failed because ECDSA verification failed");
-                meterRegistry.counter("jwt_invalid_signature_total").increment();
+                invalidSignature.increment();
                 throw new SecurityException("Invalid signature");
             }
             return extractJwtClaimsSet(jwt);
 
         } catch (JOSEException e) {
             log.error("JWT verification failed (JOSE error): {}", e.getMessage());
-            meterRegistry.counter("jwt_invalid_signature_total").increment();
+            invalidSignature.increment();
             throw new SecurityException("Unsupported JWS algorithm RS256, must be ES256");
         } catch (ParseException | IllegalArgumentException e) {
             log.warn("JWT verification failed (parse or unknown error): {}", e.getMessage());
-            meterRegistry.counter("jwt_malformed_total").increment();
+            malformed.increment();
             throw new SecurityException("Invalid token", e);
         }
     }
@@ -58,40 +116,58 @@ class JwtTokenVerifier {
         var subject = claims.getSubject();
         if (subject == null || subject.isBlank()) {
             log.warn("JWT subject is null or blank");
-            meterRegistry.counter("jwt_missing_subject_total", "subject", "null_or_blank").increment();
+            missingSubject.increment();
             throw new SecurityException("Missing subject");
         }
 
-        var now = Date.from(clock.instant());
-        log.info("Checking token, current time: {}", now);
-
-        if (claims.getExpirationTime().before(now)) {
-            log.warn("JWT expired: {}", claims.getSubject());
-            meterRegistry.counter("jwt_token_expired_total", "subject", subject).increment();
-            throw new SecurityException("Token expired");
-        }
+        checkNotExpired(claims, subject);
 
         var issueTime = claims.getIssueTime();
         var tokenTtl = Duration.between(issueTime.toInstant(), claims.getExpirationTime().toInstant());
 
         if (tokenTtl.compareTo(MAX_TOKEN_TTL) > 0) {
-            log.warn("JWT TTL exceeds maximum allowed: {}", tokenTtl);
-            meterRegistry.counter("jwt_token_ttl_too_long_total", "subject", subject).increment();
+            log.warn("JWT TTL of '{}' exceeds maximum allowed: {}", subject, tokenTtl);
+            ttlTooLong.increment();
             throw new SecurityException("Token TTL too long");
         }
 
         if (!ISSUER.equals(claims.getIssuer())) {
-            log.warn("JWT issuer invalid: {}", claims.getIssuer());
-            meterRegistry.counter("jwt_invalid_issuer_total", "subject", subject).increment();
+            log.warn("JWT issuer of '{}' invalid: {}", subject, claims.getIssuer());
+            invalidIssuer.increment();
             throw new SecurityException("Invalid issuer");
         }
 
         if (!claims.getAudience().contains(AUDIENCE)) {
-            log.warn("JWT audience invalid: {}", claims.getAudience());
-            meterRegistry.counter("jwt_invalid_audience_total", "subject", subject).increment();
+            log.warn("JWT audience of '{}' invalid: {}", subject, claims.getAudience());
+            invalidAudience.increment();
             throw new SecurityException("Invalid audience");
         }
 
         return claims;
     }
+
+    private void checkNotExpired(JWTClaimsSet claims, String subject) {
+        var now = Date.from(clock.instant());
+        log.info("Checking token, current time: {}", now);
+
+        if (claims.getExpirationTime().before(now)) {
+            log.warn("JWT expired: {}", subject);
+            expired.increment();
+            throw new SecurityException("Token expired");
+        }
+    }
+
+    private Duration timeToExpiry(JWTClaimsSet claims) {
+        var ttl = Duration.between(clock.instant(), claims.getExpirationTime().toInstant());
+        return ttl.isNegative() ? Duration.ZERO : ttl;
+    }
+
+    private static String cacheKey(String token) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
@@ -0,0 +1,14 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param cacheSize verified tokens kept in memory, so repeated requests with the same token skip signature checks;
+ *                  0 disables the cache
+ */
+@ConfigurationProperties(prefix = "jwt.verifier")
+record JwtVerifierProperties(
+  @DefaultValue("10000") int cacheSize
+) {
+}
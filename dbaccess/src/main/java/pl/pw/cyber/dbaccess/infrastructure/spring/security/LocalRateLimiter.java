@@ -0,0 +1,21 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.github.bucket4j.Bucket;
+
+/**
+ * Buckets held in memory of this instance only, so every replica enforces the limit on its own.
+ */
+class LocalRateLimiter implements RateLimiter {
+
+    private final Cache<BucketKey, Bucket> buckets;
+
+    LocalRateLimiter(Cache<BucketKey, Bucket> buckets) {
+        this.buckets = buckets;
+    }
+
+    @Override
+    public boolean tryConsume(BucketKey key, long tokens) {
+        return buckets.get(key, k -> Bucket.builder().addLimit(k.policy().bandwidth()).build()).tryConsume(tokens);
+    }
+}
@@ -0,0 +1,191 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Buckets shared by all replicas, stored as one Mongo document per policy and subject and updated with
+ * compare-and-swap.
+ * <p>
+ * A document holds the tokens left at {@code refilledAt}; readers add the greedy refill since then and
+ * write the result back only if {@code version} did not change in the meantime. Documents expire once
+ * their bucket would be full again, so idle subjects do not accumulate.
+ * <p>
+ * With {@code prefetch > 1}, a remote call takes up to that many tokens at once and keeps the surplus
+ * locally for {@code prefetchLease}, so most requests of a busy subject do not leave the process.
+ * Surplus not used within the lease is lost to the shared bucket, so prefetching only suits limits with
+ * a high capacity. When Mongo is not reachable, the limit falls back to {@code fallback} buckets
+ * of this instance.
+ */
+@Slf4j
+class MongoRateLimiter implements RateLimiter {
+
+    static final String COLLECTION = "rate_limit_buckets";
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+    private final int prefetch;
+    private final RateLimiter fallback;
+    private final Cache<BucketKey, AtomicLong> prefetched;
+    private final Counter conflicts;
+    private final Counter backendFailures;
+
+    MongoRateLimiter(
+      MongoTemplate mongoTemplate,
+      Clock clock,
+      int prefetch,
+      Duration prefetchLease,
+      RateLimiter fallback,
+      MeterRegistry meterRegistry
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.clock = clock;
+        this.prefetch = Math.max(1, prefetch);
+        this.fallback = fallback;
+        this.prefetched = Caffeine.newBuilder()
+          .expireAfterWrite(prefetchLease)
+          .build();
+        this.conflicts = Counter.builder("rate_limit_update_conflicts_total")
+          .description("Shared bucket updates retried because another replica changed the bucket first")
+          .register(meterRegistry);
+        this.backendFailures = Counter.builder("rate_limit_backend_failures_total")
+          .description("Requests limited by local buckets because the shared bucket store failed")
+          .register(meterRegistry);
+    }
+
+    @Override
+    public boolean tryConsume(BucketKey key, long tokens) {
+        var local = prefetched.getIfPresent(key);
+        if (local != null && takeLocally(local, tokens)) {
+            return true;
+        }
+        try {
+            var granted = acquire(key, tokens, tokens + prefetch - 1);
+            if (granted > tokens) {
+                prefetched.asMap().computeIfAbsent(key, k -> new AtomicLong()).addAndGet(granted - tokens);
+            }
+            return granted >= tokens;
+        } catch (DataAccessException e) {
+            backendFailures.increment();
+            log.warn("Shared rate limit store failed, limiting '{}' locally: {}", key.subject(), e.getMessage());
+            return fallback.tryConsume(key, tokens);
+        }
+    }
+
+    private static boolean takeLocally(AtomicLong available, long tokens) {
+        var current = available.get();
+        while (current >= tokens) {
+            if (available.compareAndSet(current, current - tokens)) {
+                return true;
+            }
+            current = available.get();
+        }
+        return false;
+    }
+
+    /**
+     * @return tokens taken from the shared bucket, between {@code wanted} and {@code atMost}, or 0 if fewer
+     * than {@code wanted} are available
+     */
+    long acquire(BucketKey key, long wanted, long atMost) {
+        var id = documentId(key);
+        var limit = key.policy().bandwidth();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            var now = clock.millis();
+            var bucket = mongoTemplate.findById(id, Document.class, COLLECTION);
+            var available = bucket == null ? limit.getCapacity() : refilled(bucket, limit, now);
+            if (available < wanted) {
+                return 0;
+            }
+            var granted = Math.min(atMost, (long) available);
+            var remaining = available - granted;
+            if (bucket == null ? insert(id, remaining, now, limit) : update(id, bucket, remaining, now, limit)) {
+                return granted;
+            }
+            conflicts.increment();
+        }
+        log.warn("Gave up updating shared rate limit bucket {} after {} conflicting attempts", id.toJson(), MAX_ATTEMPTS);
+        return 0;
+    }
+
+    /**
+     * Compound id, so buckets of one subject under different policies stay apart without string concatenation.
+     */
+    static Document documentId(BucketKey key) {
+        return new Document("policy", key.policy().name()).append("subject", key.subject());
+    }
+
+    private static double refilled(Document bucket, Bandwidth limit, long now) {
+        var elapsedNanos = Math.max(0, now - bucket.getLong("refilledAt")) * 1_000_000.0;
+        var refill = elapsedNanos * limit.getRefillTokens() / limit.getRefillPeriodNanos();
+        return Math.min(limit.getCapacity(), bucket.getDouble("tokens") + refill);
+    }
+
+    private boolean insert(Document id, double tokens, long now, Bandwidth limit) {
+        try {
+            mongoTemplate.insert(
+              new Document("_id", id)
+                .append("tokens", tokens)
+                .append("refilledAt", now)
+                .append("version", 0L)
+                .append("expiresAt", fullAt(tokens, now, limit)),
+              COLLECTION
+            );
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private boolean update(Document id, Document bucket, double tokens, long now, Bandwidth limit) {
+        var result = mongoTemplate.updateFirst(
+          Query.query(where("_id").is(id).and("version").is(bucket.getLong("version"))),
+          new Update()
+            .set("tokens", tokens)
+            .set("refilledAt", now)
+            .set("expiresAt", fullAt(tokens, now, limit))
+            .inc("version", 1L),
+          COLLECTION
+        );
+        return result.getModifiedCount() == 1;
+    }
+
+    private static Date fullAt(double tokens, long now, Bandwidth limit) {
+        var missing = limit.getCapacity() - tokens;
+        var refillMillis = (long) Math.ceil(missing * limit.getRefillPeriodNanos() / limit.getRefillTokens() / 1_000_000.0);
+        return new Date(now + refillMillis);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(COLLECTION).ensureIndex(
+              new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO).named("expiresAt")
+            );
+        } catch (Exception e) {
+            log.error("Failed to ensure rate limit bucket indexes: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+import pl.pw.cyber.dbaccess.domain.PermissionLevel;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate-limit policies resolved from configuration into a lookup table.
+ * <p>
+ * Each configured policy may be restricted to principals, target databases and permission levels; an empty
+ * restriction matches anything. The policy restricted on the most of these wins, so a policy for
+ * {@code DELETE} on a production database applies even to principals that have their own, more generous
+ * policy. Among equally specific policies the one declared first wins. Requests no policy matches fall under
+ * the default policy.
+ * <p>
+ * A request whose database or permission level is not known falls under the strictest policy its principal
+ * could fall under, the default one included, and takes the highest cost, so a malformed body never escapes
+ * a tighter limit.
+ * <p>
+ * Every combination a policy matches is expanded up front, so resolving a request takes a fixed number
+ * of hash lookups regardless of how many policies are configured.
+ */
+class RateLimitPolicies {
+
+    static final String DEFAULT_POLICY = "default";
+
+    /**
+     * Wildcard patterns from most to least specific: principal, database, permission level.
+     */
+    private static final boolean[][] LOOKUP_ORDER = {
+      {true, true, true},
+      {false, true, true},
+      {true, false, true},
+      {true, true, false},
+      {false, false, true},
+      {false, true, false},
+      {true, false, false},
+    };
+
+    private final Map<PolicyKey, RateLimitPolicy> table;
+    private final RateLimitPolicy defaultPolicy;
+    private final Map<PermissionLevel, Long> costs;
+    private final long highestCost;
+    private final RateLimitPolicy strictestForAnyone;
+    private final Map<String, RateLimitPolicy> strictestByPrincipal;
+
+    RateLimitPolicies(RateLimitProperties properties) {
+        this.defaultPolicy = RateLimitPolicy.of(
+          DEFAULT_POLICY,
+          properties.defaultLimit().capacity(),
+          properties.defaultLimit().refillPeriod()
+        );
+        this.costs = costs(properties.costs());
+        this.highestCost = costs.values().stream().mapToLong(Long::longValue).max().orElse(1);
+        var definitions = properties.policies();
+        var policies = definitions.stream()
+          .map(definition -> RateLimitPolicy.of(definition.name(), definition.capacity(), definition.refillPeriod()))
+          .toList();
+        this.table = table(definitions, policies);
+        this.strictestForAnyone = strictestForAnyone(definitions, policies, defaultPolicy);
+        this.strictestByPrincipal = strictestByPrincipal(definitions, policies, strictestForAnyone);
+        checkCapacityCoversCosts(defaultPolicy);
+        table.values().forEach(this::checkCapacityCoversCosts);
+    }
+
+    RateLimitPolicy resolve(String principal, String database, PermissionLevel permissionLevel) {
+        if (table.isEmpty()) {
+            return defaultPolicy;
+        }
+        for (var pattern : LOOKUP_ORDER) {
+            if ((pattern[0] && principal == null) || (pattern[1] && database == null) || (pattern[2] && permissionLevel == null)) {
+                continue;
+            }
+            var policy = table.get(new PolicyKey(
+              pattern[0] ? principal : null,
+              pattern[1] ? database : null,
+              pattern[2] ? permissionLevel : null
+            ));
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Policy of a request whose database or permission level is not known.
+     */
+    RateLimitPolicy resolveUnknownTarget(String principal) {
+        return strictestByPrincipal.getOrDefault(principal, strictestForAnyone);
+    }
+
+    /**
+     * Tokens a request for {@code permissionLevel} takes; 1 when not known.
+     */
+    long cost(PermissionLevel permissionLevel) {
+        return permissionLevel == null ? 1 : costs.get(permissionLevel);
+    }
+
+    /**
+     * Tokens a request of the most expensive permission level takes.
+     */
+    long highestCost() {
+        return highestCost;
+    }
+
+    private void checkCapacityCoversCosts(RateLimitPolicy policy) {
+        if (policy.bandwidth().getCapacity() < highestCost) {
+            throw new IllegalArgumentException("Rate limit policy '%s' has capacity %d, below the highest request cost %d"
+              .formatted(policy.name(), policy.bandwidth().getCapacity(), highestCost));
+        }
+    }
+
+    private static Map<PermissionLevel, Long> costs(Map<PermissionLevel, Long> configured) {
+        var costs = new EnumMap<PermissionLevel, Long>(PermissionLevel.class);
+        for (var level : PermissionLevel.values()) {
+            var cost = configured.getOrDefault(level, 1L);
+            if (cost < 1) {
+                throw new IllegalArgumentException("Rate limit cost of %s must be positive, was %d".formatted(level, cost));
+            }
+            costs.put(level, cost);
+        }
+        return costs;
+    }
+
+    private static Map<PolicyKey, RateLimitPolicy> table(
+      List<RateLimitProperties.Policy> definitions,
+      List<RateLimitPolicy> policies
+    ) {
+        var table = new HashMap<PolicyKey, RateLimitPolicy>();
+        for (var i = 0; i < definitions.size(); i++) {
+            var definition = definitions.get(i);
+            if (definition.principals().isEmpty() && definition.databases().isEmpty() && definition.permissionLevels().isEmpty()) {
+                throw new IllegalArgumentException(
+                  "Rate limit policy '%s' matches every request, configure it as the default limit instead"
+                    .formatted(definition.name())
+                );
+            }
+            var policy = policies.get(i);
+            for (var principal : orWildcard(definition.principals())) {
+                for (var database : orWildcard(definition.databases())) {
+                    for (var level : orWildcard(definition.permissionLevels())) {
+                        table.putIfAbsent(new PolicyKey(principal, database, level), policy);
+                    }
+                }
+            }
+        }
+        return Map.copyOf(table);
+    }
+
+    private static RateLimitPolicy strictestForAnyone(
+      List<RateLimitProperties.Policy> definitions,
+      List<RateLimitPolicy> policies,
+      RateLimitPolicy defaultPolicy
+    ) {
+        var strictest = defaultPolicy;
+        for (var i = 0; i < definitions.size(); i++) {
+            if (definitions.get(i).principals().isEmpty()) {
+                strictest = stricter(strictest, policies.get(i));
+            }
+        }
+        return strictest;
+    }
+
+    private static Map<String, RateLimitPolicy> strictestByPrincipal(
+      List<RateLimitProperties.Policy> definitions,
+      List<RateLimitPolicy> policies,
+      RateLimitPolicy strictestForAnyone
+    ) {
+        var strictest = new HashMap<String, RateLimitPolicy>();
+        for (var i = 0; i < definitions.size(); i++) {
+            var policy = policies.get(i);
+            for (var principal : definitions.get(i).principals()) {
+                strictest.merge(principal, stricter(strictestForAnyone, policy), RateLimitPolicies::stricter);
+            }
+        }
+        return Map.copyOf(strictest);
+    }
+
+    /**
+     * The policy that refills slower, or the smaller one when both refill at the same rate.
+     */
+    private static RateLimitPolicy stricter(RateLimitPolicy first, RateLimitPolicy second) {
+        var byRefillRate = Double.compare(first.refillRate(), second.refillRate());
+        if (byRefillRate != 0) {
+            return byRefillRate < 0 ? first : second;
+        }
+        return second.bandwidth().getCapacity() < first.bandwidth().getCapacity() ? second : first;
+    }
+
+    private static <T> List<T> orWildcard(List<T> values) {
+        if (values.isEmpty()) {
+            var wildcard = new ArrayList<T>(1);
+            wildcard.add(null);
+            return wildcard;
+        }
+        return values;
+    }
+
+    private record PolicyKey(String principal, String database, PermissionLevel permissionLevel) {
+    }
+}
@@ -0,0 +1,32 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+import io.github.bucket4j.Bandwidth;
+
+import java.time.Duration;
+
+/**
+ * A named limit; every subject gets its own bucket per policy.
+ */
+record RateLimitPolicy(String name, Bandwidth bandwidth) {
+
+    static RateLimitPolicy of(String name, long capacity, Duration refillPeriod) {
+        return new RateLimitPolicy(name, Bandwidth.builder()
+          .capacity(capacity)
+          .refillGreedy(capacity, refillPeriod)
+          .build());
+    }
+
+    /**
+     * Time after which an untouched bucket is full again.
+     */
+    Duration refillPeriod() {
+        return Duration.ofNanos(bandwidth.getRefillPeriodNanos());
+    }
+
+    /**
+     * Tokens added back per second.
+     */
+    double refillRate() {
+        return bandwidth.getRefillTokens() * 1e9 / bandwidth.getRefillPeriodNanos();
+    }
+}
@@ -0,0 +1,59 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import pl.pw.cyber.dbaccess.domain.PermissionLevel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @param maxBuckets    rate-limit buckets kept in memory; buckets idle for longer than the refill period are full
+ *                      again and dropped anyway, so this only caps memory under a burst of distinct principals
+ * @param store         where buckets live, see {@link Store}
+ * @param prefetch      tokens taken from a shared bucket per remote call, the surplus being used locally;
+ *                      1 disables prefetching
+ * @param prefetchLease how long prefetched tokens may be used before they are dropped
+ * @param defaultLimit  limit of requests no policy matches
+ * @param policies      limits for selected principals, databases or permission levels, see {@link RateLimitPolicies}
+ * @param costs         tokens an access request takes per permission level; levels not listed cost 1
+ */
+@ConfigurationProperties(prefix = "dbaccess.rate-limit")
+record RateLimitProperties(
+  @DefaultValue("100000") long maxBuckets,
+  @DefaultValue("LOCAL") Store store,
+  @DefaultValue("1") int prefetch,
+  @DefaultValue("1s") Duration prefetchLease,
+  @DefaultValue Limit defaultLimit,
+  @DefaultValue List<Policy> policies,
+  @DefaultValue Map<PermissionLevel, Long> costs
+) {
+
+    enum Store {
+        /** Every instance keeps its own buckets, so N replicas allow N times the limit. */
+        LOCAL,
+        /** Buckets are shared by all replicas through Mongo, see {@link MongoRateLimiter}. */
+        MONGO
+    }
+
+    /**
+     * Up to {@code capacity} tokens, refilled gradually over {@code refillPeriod}.
+     */
+    record Limit(
+      @DefaultValue("5") long capacity,
+      @DefaultValue("5m") Duration refillPeriod
+    ) {}
+
+    /**
+     * A limit applied to requests matching all non-empty restrictions.
+     */
+    record Policy(
+      String name,
+      @DefaultValue List<String> principals,
+      @DefaultValue List<String> databases,
+      @DefaultValue List<PermissionLevel> permissionLevels,
+      long capacity,
+      Duration refillPeriod
+    ) {}
+}
@@ -0,0 +1,14 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security;
+
+/**
+ * Token buckets keyed by policy and rate-limit subject.
+ */
+interface RateLimiter {
+
+    /**
+     * Takes {@code tokens} from the bucket of {@code key}, creating a full bucket with the key's policy on first use.
+     *
+     * @return {@code false} when the bucket does not hold enough tokens; nothing is taken then
+     */
+    boolean tryConsume(BucketKey key, long tokens);
+}
@@ -1,39 +1,70 @@
 package pl.pw.cyber.dbaccess.infrastructure.spring.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.bucket4j.Bandwidth;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.github.bucket4j.Bucket;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Clock;
 
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 class RateLimitingConfig {
 
     @Bean
-    public Map<String, Bucket> rateLimitCache() {
-        return new ConcurrentHashMap<>();
+    RateLimitPolicies rateLimitPolicies(RateLimitProperties properties) {
+        return new RateLimitPolicies(properties);
     }
 
     @Bean
-    public Bandwidth rateLimitPolicy() {
-        return Bandwidth.builder()
-          .capacity(5)
-          .refillGreedy(5, Duration.ofMinutes(5))
+    public Cache<BucketKey, Bucket> rateLimitCache(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        Cache<BucketKey, Bucket> cache = Caffeine.newBuilder()
+          .maximumSize(properties.maxBuckets())
+          // A bucket idle for a whole refill period is full again, so dropping it loses nothing.
+          .expireAfter(Expiry.accessing((BucketKey key, Bucket bucket) -> key.policy().refillPeriod()))
+          .recordStats()
           .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "rate_limit_buckets");
+        return cache;
+    }
+
+    @Bean
+    RateLimiter rateLimiter(
+      Cache<BucketKey, Bucket> rateLimitCache,
+      RateLimitProperties properties,
+      ObjectProvider<MongoTemplate> mongoTemplate,
+      Clock clock,
+      MeterRegistry meterRegistry
+    ) {
+        var local = new LocalRateLimiter(rateLimitCache);
+        if (properties.store() == RateLimitProperties.Store.LOCAL) {
+            return local;
+        }
+        return new MongoRateLimiter(
+          mongoTemplate.getObject(),
+          clock,
+          properties.prefetch(),
+          properties.prefetchLease(),
+          local,
+          meterRegistry
+        );
     }
 
     @Bean
     RateLimitingFilter rateLimitingFilter(
-      Map<String, Bucket> cache,
-      Bandwidth rateLimitPolicy,
+      RateLimiter rateLimiter,
+      RateLimitPolicies rateLimitPolicies,
       MeterRegistry meterRegistry,
       ObjectMapper objectMapper
     ) {
-        return new RateLimitingFilter(cache, rateLimitPolicy, meterRegistry, objectMapper);
+        return new RateLimitingFilter(rateLimiter, rateLimitPolicies, meterRegistry, objectMapper);
     }
 }
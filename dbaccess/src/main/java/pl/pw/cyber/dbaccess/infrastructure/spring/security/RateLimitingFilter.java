@@ -1,77 +1,136 @@
 package pl.pw.cyber.dbaccess.infrastructure.spring.security;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
+import pl.pw.cyber.dbaccess.domain.PermissionLevel;
 import pl.pw.cyber.dbaccess.web.validation.ProblemDetailsBuilder;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Limits access requests per principal under the policy resolved for the requested database and permission
+ * level, see {@link RateLimitPolicies}. A request takes as many tokens as its permission level costs.
+ * <p>
+ * The body is parsed here only to pick the policy, and the endpoint still validates it afterwards. A body longer
+ * than {@value #MAX_BODY_BYTES} bytes is rejected right away, so every request the endpoint sees was inspected.
+ * A body without a readable database and permission level falls under the strictest policy of its principal
+ * at the highest cost, see {@link RateLimitPolicies#resolveUnknownTarget}.
+ */
 class RateLimitingFilter extends OncePerRequestFilter {
 
-    private final Map<String, Bucket> cache;
-    private final Bandwidth policy;
+    private static final String RATE_LIMITED_PATH = "/access-request";
+    /**
+     * Access request bodies are a few hundred bytes.
+     */
+    static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitPolicies policies;
     private final MeterRegistry meterRegistry;
+    private final Map<RateLimitPolicy, Counter> exceededByPolicy = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper;
 
-    private static final List<String> RATE_LIMITED_PATHS = List.of("/access-request");
-
     RateLimitingFilter(
-      Map<String, Bucket> cache,
-      Bandwidth policy,
+      RateLimiter rateLimiter,
+      RateLimitPolicies policies,
       MeterRegistry meterRegistry,
       ObjectMapper objectMapper
     ) {
-        this.cache = cache;
-        this.policy = policy;
+        this.rateLimiter = rateLimiter;
+        this.policies = policies;
         this.meterRegistry = meterRegistry;
         this.objectMapper = objectMapper;
     }
 
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(RATE_LIMITED_PATH);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
       throws ServletException, IOException {
 
-        var path = request.getRequestURI();
-        if (!isRateLimited(path)) {
-            chain.doFilter(request, response);
+        var cachedRequest = CachedBodyHttpServletRequest.read(request, MAX_BODY_BYTES);
+        if (cachedRequest.isEmpty()) {
+            writeProblem(response, ProblemDetailsBuilder.payloadTooLarge("/errors/payload-too-large"));
             return;
         }
 
-        var key = resolveKey();
-        var bucket = cache.computeIfAbsent(key, k -> Bucket.builder().addLimit(policy).build());
+        var target = readTarget(cachedRequest.get().body());
+        var subject = resolveSubject();
+        var permissionLevel = target.permissionLevelOrNull();
+        RateLimitPolicy policy;
+        long cost;
+        if (target.targetDatabase() == null || permissionLevel == null) {
+            policy = policies.resolveUnknownTarget(subject);
+            cost = policies.highestCost();
+        } else {
+            policy = policies.resolve(subject, target.targetDatabase(), permissionLevel);
+            cost = policies.cost(permissionLevel);
+        }
 
-        if (bucket.tryConsume(1)) {
-            chain.doFilter(request, response);
+        if (rateLimiter.tryConsume(new BucketKey(policy, subject), cost)) {
+            chain.doFilter(cachedRequest.get(), response);
         } else {
-            countRateLimitExceeded(key);
-            var problem = ProblemDetailsBuilder.tooManyRequest("/errors/rate-limit-exceeded");
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            response.setContentType("application/problem+json");
-            objectMapper.writeValue(response.getWriter(), problem);
+            countRateLimitExceeded(policy);
+            writeProblem(response, ProblemDetailsBuilder.tooManyRequest("/errors/rate-limit-exceeded"));
         }
     }
 
-    private boolean isRateLimited(String path) {
-        return RATE_LIMITED_PATHS.stream().anyMatch(path::startsWith);
+    private void writeProblem(HttpServletResponse response, ProblemDetail problem) throws IOException {
+        response.setStatus(problem.getStatus());
+        response.setContentType("application/problem+json");
+        objectMapper.writeValue(response.getWriter(), problem);
+    }
+
+    private RequestedTarget readTarget(byte[] body) {
+        if (body.length == 0) {
+            return RequestedTarget.UNKNOWN;
+        }
+        try {
+            return objectMapper.readValue(body, RequestedTarget.class);
+        } catch (IOException e) {
+            return RequestedTarget.UNKNOWN;
+        }
     }
 
-    private String resolveKey() {
+    private String resolveSubject() {
         var authentication = (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
         return String.valueOf(authentication.getPrincipal());
     }
 
-    private void countRateLimitExceeded(String user) {
-        meterRegistry.counter("rate_limit_exceeded_total", "subject", user).increment();
+    private void countRateLimitExceeded(RateLimitPolicy policy) {
+        exceededByPolicy
+          .computeIfAbsent(policy, p -> meterRegistry.counter("rate_limit_exceeded_total", "policy", p.name()))
+          .increment();
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record RequestedTarget(String targetDatabase, String permissionLevel) {
+
+        static final RequestedTarget UNKNOWN = new RequestedTarget(null, null);
+
+        PermissionLevel permissionLevelOrNull() {
+            if (permissionLevel == null) {
+                return null;
+            }
+            try {
+                return PermissionLevel.valueOf(permissionLevel);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
     }
 }
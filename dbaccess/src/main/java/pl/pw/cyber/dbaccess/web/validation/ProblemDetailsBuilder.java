@@ -26,4 +26,12 @@ public final class ProblemDetailsBuilder {
         problem.setType(URI.create(type));
         return problem;
     }
+
+    public static ProblemDetail payloadTooLarge(String type) {
+        var problem = ProblemDetail.forStatus(HttpStatus.PAYLOAD_TOO_LARGE);
+        problem.setTitle("Payload Too Large");
+        problem.setDetail("Request body is too large.");
+        problem.setType(URI.create(type));
+        return problem;
+    }
 }
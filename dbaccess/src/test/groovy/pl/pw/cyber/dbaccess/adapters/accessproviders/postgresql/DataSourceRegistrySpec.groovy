@@ -0,0 +1,102 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql
+
+import com.zaxxer.hikari.HikariDataSource
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabase
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabasesChanged
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class DataSourceRegistrySpec extends Specification {
+
+    private static final PostgresAccessProperties.Pool POOL = new PostgresAccessProperties.Pool(
+            3, 0, Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ofMinutes(30), Duration.ZERO, Duration.ofSeconds(5)
+    )
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def registry = new DataSourceRegistry(POOL, meterRegistry)
+
+    def cleanup() {
+        registry.close()
+    }
+
+    def "should reuse pool for the same database"() {
+        given:
+            def db = database("test_db", "secret")
+
+        expect:
+            registry.dataSourceFor(db).is(registry.dataSourceFor(db))
+    }
+
+    def "should configure pool with per-database limits"() {
+        when:
+            def dataSource = registry.dataSourceFor(database("test_db", "secret")) as HikariDataSource
+
+        then:
+            dataSource.poolName == "dbaccess-test_db"
+            dataSource.maximumPoolSize == 3
+            dataSource.minimumIdle == 0
+    }
+
+    def "should recreate pool when connection details change"() {
+        given:
+            def first = registry.dataSourceFor(database("test_db", "secret")) as HikariDataSource
+
+        when:
+            def second = registry.dataSourceFor(database("test_db", "rotated")) as HikariDataSource
+
+        then:
+            !first.is(second)
+            first.isClosed()
+            !second.isClosed()
+    }
+
+    def "should expose pool gauges"() {
+        when:
+            registry.dataSourceFor(database("test_db", "secret"))
+
+        then:
+            meterRegistry.get("hikaricp.connections.max").tag("pool", "dbaccess-test_db").gauge().value() == 3
+    }
+
+    def "should close pool on eviction"() {
+        given:
+            def dataSource = registry.dataSourceFor(database("test_db", "secret")) as HikariDataSource
+
+        when:
+            registry.evict("test_db")
+
+        then:
+            dataSource.isClosed()
+    }
+
+    def "should close pool of a removed database"() {
+        given:
+            def dataSource = registry.dataSourceFor(database("test_db", "secret")) as HikariDataSource
+
+        when:
+            registry.onDatabasesChanged(new ResolvedDatabasesChanged(["test_db"] as Set, []))
+
+        then:
+            dataSource.isClosed()
+    }
+
+    def "should open pool of an added database in the background"() {
+        given:
+            def added = database("new_db", "secret")
+
+        when:
+            registry.onDatabasesChanged(new ResolvedDatabasesChanged([] as Set, [added]))
+
+        then:
+            new PollingConditions(timeout: 10).eventually {
+                assert meterRegistry.find("hikaricp.connections.max").tag("pool", "dbaccess-new_db").gauge() != null
+            }
+    }
+
+    private static ResolvedDatabase database(String name, String password) {
+        return new ResolvedDatabase(name, "jdbc:postgresql://localhost:5432/${name}", "user", password)
+    }
+}
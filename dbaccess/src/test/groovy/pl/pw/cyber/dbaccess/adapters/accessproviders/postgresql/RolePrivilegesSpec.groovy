@@ -0,0 +1,84 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql
+
+import org.springframework.jdbc.core.JdbcTemplate
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabase
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabasesChanged
+import spock.lang.Specification
+
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresAccessProperties.PrivilegeModel.DIRECT
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresAccessProperties.PrivilegeModel.GROUP_ROLE
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.PostgresAccessProperties.ScriptMode.PER_STATEMENT
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.READ_ONLY
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.READ_WRITE
+
+class RolePrivilegesSpec extends Specification {
+
+    def jdbc = Mock(JdbcTemplate)
+    def scriptExecutor = new StatementScriptExecutor(PER_STATEMENT)
+
+    def "should grant privileges to the temporary role in direct mode"() {
+        given:
+            def privileges = new RolePrivileges(DIRECT, scriptExecutor)
+
+        when:
+            def script = privileges.createRoleScript(jdbc, 'CREATE ROLE "tmpuser"', "tmpuser", "test_db", READ_ONLY)
+
+        then:
+            script.size() == 6
+            script.first() == 'CREATE ROLE "tmpuser"'
+            script.any { it.contains('GRANT SELECT ON ALL TABLES IN SCHEMA public TO "tmpuser"') }
+            0 * jdbc._
+    }
+
+    def "should create temporary role as a member of a prepared group role"() {
+        given:
+            def privileges = new RolePrivileges(GROUP_ROLE, scriptExecutor)
+            def group = RolePrivileges.groupName("test_db", READ_ONLY)
+
+        when:
+            def script = privileges.createRoleScript(jdbc, 'CREATE ROLE "tmpuser"', "tmpuser", "test_db", READ_ONLY)
+
+        then:
+            script == ["CREATE ROLE \"tmpuser\" IN ROLE \"${group}\"".toString()]
+            1 * jdbc.execute({ it.contains("CREATE ROLE \"${group}\" WITH NOLOGIN") })
+            1 * jdbc.execute("GRANT SELECT ON ALL TABLES IN SCHEMA public TO \"${group}\"".toString())
+            4 * jdbc.execute(_)
+    }
+
+    def "should prepare each group role once"() {
+        given:
+            def privileges = new RolePrivileges(GROUP_ROLE, scriptExecutor)
+
+        when:
+            3.times { privileges.createRoleScript(jdbc, 'CREATE ROLE "tmpuser"', "tmpuser", "test_db", READ_ONLY) }
+
+        then:
+            6 * jdbc.execute(_)
+    }
+
+    def "should prepare group roles again once their database changed"() {
+        given:
+            def privileges = new RolePrivileges(GROUP_ROLE, scriptExecutor)
+            privileges.createRoleScript(jdbc, 'CREATE ROLE "tmpuser"', "tmpuser", "test_db", READ_ONLY)
+            privileges.createRoleScript(jdbc, 'CREATE ROLE "tmpuser"', "tmpuser", "other_db", READ_ONLY)
+
+        when:
+            privileges.onDatabasesChanged(new ResolvedDatabasesChanged(
+                    Set.of("other_db"),
+                    [new ResolvedDatabase("test_db", "jdbc:postgresql://moved:5432/test_db", "admin", "secret")]
+            ))
+            privileges.createRoleScript(jdbc, 'CREATE ROLE "tmpuser"', "tmpuser", "test_db", READ_ONLY)
+            privileges.createRoleScript(jdbc, 'CREATE ROLE "tmpuser"', "tmpuser", "other_db", READ_ONLY)
+
+        then:
+            12 * jdbc.execute(_)
+    }
+
+    def "should name group roles per database and permission level"() {
+        expect:
+            RolePrivileges.groupName("test_db", READ_ONLY) ==~ /^dbaccessro[0-9a-f]{16}$/
+            RolePrivileges.groupName("test_db", READ_ONLY) == RolePrivileges.groupName("test_db", READ_ONLY)
+            RolePrivileges.groupName("test_db", READ_ONLY) != RolePrivileges.groupName("other_db", READ_ONLY)
+            RolePrivileges.groupName("test_db", READ_ONLY) != RolePrivileges.groupName("test_db", READ_WRITE)
+    }
+}
@@ -0,0 +1,32 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.ScriptTimers.Script.BULK_REVOKE
+import static pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql.ScriptTimers.Script.CREATE_ROLE
+
+class ScriptTimersSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def timers = new ScriptTimers(meterRegistry, [Duration.ofSeconds(1), Duration.ofMillis(100)])
+
+    def "should reuse timers of a database"() {
+        expect:
+            timers.timer(CREATE_ROLE, "prod").is(timers.timer(CREATE_ROLE, "prod"))
+            !timers.timer(CREATE_ROLE, "prod").is(timers.timer(BULK_REVOKE, "prod"))
+    }
+
+    def "should publish slo buckets per database and script"() {
+        when:
+            timers.timer(BULK_REVOKE, "prod").record(Duration.ofMillis(50))
+
+        then:
+            def timer = meterRegistry.get("postgres_script_duration").tags("database", "prod", "script", "bulk_revoke").timer()
+            timer.count() == 1
+            timer.takeSnapshot().histogramCounts()*.bucket(TimeUnit.MILLISECONDS).containsAll([100d, 1000d])
+    }
+}
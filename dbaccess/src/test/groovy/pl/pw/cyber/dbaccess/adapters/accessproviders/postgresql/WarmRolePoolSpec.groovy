@@ -0,0 +1,170 @@
+package pl.pw.cyber.dbaccess.adapters.accessproviders.postgresql
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.pw.cyber.dbaccess.domain.PermissionLevel
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabase
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabasesChanged
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.READ_ONLY
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.READ_WRITE
+
+class WarmRolePoolSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def provisioner = new FakeProvisioner()
+    def pool = new WarmRolePool(2, provisioner, meterRegistry)
+
+    def cleanup() {
+        pool.close()
+    }
+
+    def "should miss on first take and fill the pool in the background"() {
+        when:
+            def first = pool.take("test_db", READ_ONLY)
+
+        then:
+            first.isEmpty()
+            misses("test_db", READ_ONLY) == 1
+
+        and:
+            waitUntil { available("test_db", READ_ONLY) == 2 }
+    }
+
+    def "should hand out provisioned roles and top the pool up"() {
+        given:
+            warmUp("test_db", READ_ONLY)
+
+        when:
+            def role = pool.take("test_db", READ_ONLY)
+
+        then:
+            role.get().startsWith("ro")
+
+        and:
+            waitUntil { available("test_db", READ_ONLY) == 2 }
+            provisioner.provisioned.get() == 3
+    }
+
+    def "should keep pools per database and permission level"() {
+        given:
+            warmUp("test_db", READ_ONLY)
+
+        expect:
+            pool.take("test_db", READ_WRITE).isEmpty()
+            pool.take("other_db", READ_ONLY).isEmpty()
+    }
+
+    def "should adopt roles pooled by a previous run"() {
+        given:
+            provisioner.leftovers["test_db"] = ["roleftover1", "roleftover2"]
+
+        when:
+            pool.take("test_db", READ_ONLY)
+            waitUntil { available("test_db", READ_ONLY) == 2 }
+
+        then:
+            pool.take("test_db", READ_ONLY).get() == "roleftover1"
+            provisioner.provisioned.get() == 0
+    }
+
+    def "should retry refill after provisioning failed"() {
+        given:
+            provisioner.failing = true
+            pool.take("test_db", READ_ONLY)
+            waitUntil { provisioner.attempts.get() > 0 }
+
+        when:
+            provisioner.failing = false
+
+        then: "the next take on an empty pool schedules another refill"
+            waitUntil {
+                if (available("test_db", READ_ONLY) == 0) {
+                    pool.take("test_db", READ_ONLY)
+                }
+                available("test_db", READ_ONLY) == 2
+            }
+    }
+
+    def "should drop pools and meters of removed and changed databases"() {
+        given:
+            warmUp("removed_db", READ_ONLY)
+            warmUp("changed_db", READ_ONLY)
+            warmUp("test_db", READ_ONLY)
+
+        when:
+            pool.onDatabasesChanged(new ResolvedDatabasesChanged(
+                    Set.of("removed_db"),
+                    [new ResolvedDatabase("changed_db", "jdbc:postgresql://moved:5432/changed_db", "admin", "secret")]
+            ))
+
+        then:
+            meterRegistry.find("warm_roles_available").tag("database", "removed_db").gauge() == null
+            meterRegistry.find("warm_role_pool_miss_total").tag("database", "removed_db").counter() == null
+            meterRegistry.find("warm_roles_available").tag("database", "changed_db").gauge() == null
+            available("test_db", READ_ONLY) == 2
+
+        and: "a changed database starts over with an empty pool"
+            pool.take("changed_db", READ_ONLY).isEmpty()
+            misses("changed_db", READ_ONLY) == 1
+    }
+
+    private void warmUp(String database, PermissionLevel permissionLevel) {
+        pool.take(database, permissionLevel)
+        waitUntil { available(database, permissionLevel) == 2 }
+    }
+
+    private double available(String database, PermissionLevel permissionLevel) {
+        def gauge = meterRegistry.find("warm_roles_available")
+                .tag("database", database)
+                .tag("permission", permissionLevel.name())
+                .gauge()
+        return gauge?.value() ?: 0
+    }
+
+    private double misses(String database, PermissionLevel permissionLevel) {
+        return meterRegistry.get("warm_role_pool_miss_total")
+                .tag("database", database)
+                .tag("permission", permissionLevel.name())
+                .counter()
+                .count()
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        def deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (!condition()) {
+            assert System.nanoTime() < deadline: "Condition not met within 5 seconds"
+            Thread.sleep(10)
+        }
+    }
+
+    static class FakeProvisioner implements WarmRolePool.Provisioner {
+
+        final Map<String, List<String>> leftovers = new ConcurrentHashMap<>()
+        final AtomicInteger provisioned = new AtomicInteger()
+        final AtomicInteger attempts = new AtomicInteger()
+        volatile boolean failing = false
+
+        @Override
+        List<String> pooledRoles(String database, PermissionLevel permissionLevel) {
+            return leftovers.getOrDefault(database, [])
+        }
+
+        @Override
+        String provision(String database, PermissionLevel permissionLevel) {
+            attempts.incrementAndGet()
+            if (failing) {
+                throw new IllegalStateException("database is down")
+            }
+            return prefix(permissionLevel) + provisioned.incrementAndGet()
+        }
+
+        private static String prefix(PermissionLevel permissionLevel) {
+            return permissionLevel == READ_ONLY ? "ro" : "rw"
+        }
+    }
+}
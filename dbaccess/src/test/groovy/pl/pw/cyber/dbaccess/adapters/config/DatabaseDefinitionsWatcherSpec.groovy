@@ -0,0 +1,75 @@
+package pl.pw.cyber.dbaccess.adapters.config
+
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+class DatabaseDefinitionsWatcherSpec extends Specification {
+
+    @TempDir
+    Path directory
+
+    def events = []
+    Path file
+    DatabaseDefinitionsWatcher watcher
+
+    def setup() {
+        file = directory.resolve("db-access.yaml")
+        write("test1")
+        watcher = new DatabaseDefinitionsWatcher(
+                file, DatabaseDefinitionsLoader.load(file), Duration.ofMillis(50), { events << it }
+        )
+    }
+
+    def cleanup() {
+        watcher.close()
+    }
+
+    def "should load definitions from the file"() {
+        expect:
+            DatabaseDefinitionsLoader.load(file).databases() == [
+                    test1: new DatabaseAccessProperties.DataSourceDefinition("TEST1")
+            ]
+    }
+
+    def "should publish new definitions when the file changes"() {
+        when:
+            write("test1", "test2")
+
+        then:
+            new PollingConditions(timeout: 10).eventually {
+                assert events.size() == 1
+                assert (events[0] as DatabaseDefinitionsChangedEvent).properties().databases().keySet() == ["test1", "test2"] as Set
+            }
+    }
+
+    def "should not publish when the content did not change"() {
+        when:
+            watcher.reload()
+
+        then:
+            events.isEmpty()
+    }
+
+    def "should keep previous definitions when the file cannot be read"() {
+        given:
+            Files.writeString(file, "db: [ not a map")
+
+        when:
+            watcher.reload()
+            Files.delete(file)
+            watcher.reload()
+
+        then:
+            events.isEmpty()
+    }
+
+    private void write(String... names) {
+        def content = "db:\n  databases:\n" + names.collect { "    ${it}:\n      envPrefix: ${it.toUpperCase()}\n" }.join()
+        Files.writeString(file, content)
+    }
+}
@@ -2,6 +2,7 @@ package pl.pw.cyber.dbaccess.adapters.config
 
 import pl.pw.cyber.dbaccess.common.result.ResultExecutionException
 import pl.pw.cyber.dbaccess.domain.ResolvedDatabase
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabasesChanged
 import pl.pw.cyber.dbaccess.testing.dsl.builders.EnvVariableDatabaseBuilder
 import spock.lang.Specification
 
@@ -11,6 +12,7 @@ class YamlDatabaseConfigurationProviderSpec extends Specification {
 
     private static class FakeEnvironmentReader implements EnvironmentReader {
         private final Map<String, String> env = [:]
+        int lookups = 0
 
         void set(String key, String value) {
             env.put(key, value)
@@ -18,6 +20,7 @@ class YamlDatabaseConfigurationProviderSpec extends Specification {
 
         @Override
         String getEnv(String key) {
+            lookups++
             return env.get(key)
         }
     }
@@ -29,6 +32,12 @@ class YamlDatabaseConfigurationProviderSpec extends Specification {
         return new YamlDatabaseConfigurationProvider(props, envReader)
     }
 
+    private static DatabaseAccessProperties definitions(String... names) {
+        return new DatabaseAccessProperties(names.collectEntries {
+            [(it): new DatabaseAccessProperties.DataSourceDefinition(it)]
+        })
+    }
+
     private static FakeEnvironmentReader readerFor(EnvVariableDatabaseBuilder db) {
         def reader = new FakeEnvironmentReader()
         if (db.getUrl() != null)      reader.set("${db.getName()}_DB_URL", db.getUrl())
@@ -130,4 +139,96 @@ class YamlDatabaseConfigurationProviderSpec extends Specification {
         expect:
             !provider.isResolvable("not_configured")
     }
+
+    def "should read environment once and return the same resolved database on every lookup"() {
+        given:
+            def db = aDatabaseEnv().withName("test_db")
+            def reader = readerFor(db)
+            def provider = providerFor("test_db", reader)
+            def lookupsAtStartup = reader.lookups
+
+        when:
+            def first = provider.resolve("test_db")
+            def second = provider.resolve("test_db")
+            provider.isResolvable("test_db")
+
+        then:
+            first.is(second)
+            reader.lookups == lookupsAtStartup
+    }
+
+    def "should pick up changed connection details on refresh"() {
+        given:
+            def db = aDatabaseEnv().withName("test_db").withPassword(null)
+            def reader = readerFor(db)
+            def provider = providerFor("test_db", reader)
+
+        when:
+            reader.set("test_db_DB_PASSWORD", "rotated")
+            provider.refresh()
+
+        then:
+            provider.isResolvable("test_db")
+            provider.resolve("test_db").password() == "rotated"
+    }
+
+    def "should replace definitions on definitions changed event"() {
+        given:
+            def reader = readerFor(aDatabaseEnv().withName("new_db"))
+            def provider = new YamlDatabaseConfigurationProvider(new DatabaseAccessProperties(Map.of()), reader)
+
+        when:
+            provider.onDefinitionsChanged(new DatabaseDefinitionsChangedEvent(new DatabaseAccessProperties(
+                    Map.of("new_db", new DatabaseAccessProperties.DataSourceDefinition("new_db"))
+            )))
+
+        then:
+            provider.isResolvable("new_db")
+    }
+
+    def "should announce removed, added and changed databases on reload"() {
+        given:
+            def reader = readerFor(aDatabaseEnv().withName("kept_db"))
+            readerFor(aDatabaseEnv().withName("old_db")).env.each { reader.set(it.key, it.value) }
+            readerFor(aDatabaseEnv().withName("new_db")).env.each { reader.set(it.key, it.value) }
+            def events = []
+            def provider = new YamlDatabaseConfigurationProvider(definitions("kept_db", "old_db"), reader, { events << it })
+
+        when:
+            reader.set("kept_db_DB_PASSWORD", "rotated")
+            provider.refresh(definitions("kept_db", "new_db"))
+
+        then:
+            events.size() == 1
+            with(events[0] as ResolvedDatabasesChanged) {
+                removed() == ["old_db"] as Set
+                added()*.name() as Set == ["kept_db", "new_db"] as Set
+            }
+    }
+
+    def "should not announce anything when nothing changed"() {
+        given:
+            def events = []
+            def provider = new YamlDatabaseConfigurationProvider(
+                    definitions("test_db"), readerFor(aDatabaseEnv().withName("test_db")), { events << it }
+            )
+
+        when:
+            provider.refresh()
+
+        then:
+            events.isEmpty()
+    }
+
+    def "should keep the reason why a definition is not resolvable"() {
+        given:
+            def provider = providerFor("prod", readerFor(aDatabaseEnv().withName("prod").withUrl(null)))
+
+        when:
+            provider.resolve("prod")
+
+        then:
+            def e = thrown(ResultExecutionException.DatabaseNotResolvable)
+            e.message.contains("Missing DB connection details")
+    }
 }
@@ -2,9 +2,18 @@ package pl.pw.cyber.dbaccess.adapters.filedatabase
 
 import pl.pw.cyber.dbaccess.domain.User
 import spock.lang.Specification
+import spock.lang.TempDir
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
 
 class YamlUserRepositorySpec extends Specification {
 
+    @TempDir
+    Path directory
+
     def "should return user if username is in allowlist"() {
         given:
             def repo = new YamlUserRepository("example-users.yaml")
@@ -35,4 +44,66 @@ class YamlUserRepositorySpec extends Specification {
         expect:
             repo.findBy("alice").isEmpty()
     }
+
+    def "should return the same user instance on every hit"() {
+        given:
+            def repo = new YamlUserRepository("example-users.yaml")
+
+        expect:
+            repo.findBy("alice").is(repo.findBy("alice"))
+            repo.findBy(null).isEmpty()
+    }
+
+    def "should load allowlist from an external file"() {
+        given:
+            def file = writeAllowlist("dave", "erin")
+            def repo = new YamlUserRepository(file, Duration.ofMillis(50))
+
+        expect:
+            repo.findBy("dave").get() == new User("dave")
+            repo.findBy("alice").isEmpty()
+
+        cleanup:
+            repo?.close()
+    }
+
+    def "should pick up allowlist changes without restart"() {
+        given:
+            def file = writeAllowlist("dave")
+            def repo = new YamlUserRepository(file, Duration.ofMillis(50))
+
+        when:
+            writeAllowlist("erin")
+
+        then:
+            new PollingConditions(timeout: 10).eventually {
+                assert repo.findBy("erin").isPresent()
+                assert repo.findBy("dave").isEmpty()
+            }
+
+        cleanup:
+            repo?.close()
+    }
+
+    def "should keep previous allowlist when the file becomes invalid"() {
+        given:
+            def file = writeAllowlist("dave")
+            def repo = new YamlUserRepository(file, Duration.ofMillis(50))
+
+        when:
+            Files.writeString(file, "allowlist: [ broken")
+            repo.reload()
+
+        then:
+            repo.findBy("dave").isPresent()
+
+        cleanup:
+            repo?.close()
+    }
+
+    private Path writeAllowlist(String... usernames) {
+        def file = directory.resolve("users.yaml")
+        Files.writeString(file, "allowlist:\n" + usernames.collect { "  - ${it}\n" }.join())
+        return file
+    }
 }
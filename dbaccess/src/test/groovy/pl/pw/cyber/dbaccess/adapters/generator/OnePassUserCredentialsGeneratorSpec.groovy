@@ -0,0 +1,57 @@
+package pl.pw.cyber.dbaccess.adapters.generator
+
+import pl.pw.cyber.dbaccess.testing.dsl.abilities.EntropyCalculateAbility
+import spock.lang.Specification
+
+class OnePassUserCredentialsGeneratorSpec extends Specification implements EntropyCalculateAbility {
+
+    def generator = new OnePassUserCredentialsGenerator()
+
+    def "should generate passwords meeting the policy of the rejection sampling generator"() {
+        expect:
+            (1..1000).each {
+                def password = generator.generate().password()
+                assert password.length() == SecureUserCredentialsGenerator.PASSWORD_LENGTH
+                assert password.chars().anyMatch(Character::isUpperCase)
+                assert password.chars().anyMatch(Character::isLowerCase)
+                assert password.chars().anyMatch(Character::isDigit)
+                assert password.chars().anyMatch { SecureUserCredentialsGenerator.SPECIAL.indexOf(it) >= 0 }
+                assert password.chars().distinct().count() >= SecureUserCredentialsGenerator.MIN_DISTINCT_PASSWORD_CHARACTERS
+                assert password.chars().allMatch { SecureUserCredentialsGenerator.ALL_ALLOWED.indexOf(it) >= 0 }
+            }
+    }
+
+    def "should generate usernames of lowercase letters and digits"() {
+        expect:
+            (1..1000).each {
+                assert generator.generate().username() ==~ /^[a-z0-9]{12}$/
+            }
+    }
+
+    def "should generate password with sufficient entropy"() {
+        expect:
+            (1..100).each {
+                def password = generator.generate().password()
+                assert shannonEntropy(password) >= 50.0: "Entropy is below 50.0 for: $password"
+            }
+    }
+
+    def "should not place required character classes at fixed positions"() {
+        when:
+            def firstCharacters = (1..200).collect { generator.generate().password()[0] }
+
+        then:
+            firstCharacters.any { Character.isUpperCase(it as char) }
+            firstCharacters.any { Character.isLowerCase(it as char) }
+            firstCharacters.any { Character.isDigit(it as char) }
+    }
+
+    def "should not repeat credentials"() {
+        when:
+            def credentials = (1..1000).collect { generator.generate() }
+
+        then:
+            credentials*.username().toSet().size() == 1000
+            credentials*.password().toSet().size() == 1000
+    }
+}
@@ -0,0 +1,73 @@
+package pl.pw.cyber.dbaccess.adapters.generator
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.pw.cyber.dbaccess.domain.TemporaryCredentials
+import pl.pw.cyber.dbaccess.domain.UserCredentialsGenerator
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class PrefetchingUserCredentialsGeneratorSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def "should hand out credentials generated ahead of time"() {
+        given:
+            def counter = new AtomicInteger()
+            def generator = prefetching({ credentials(counter.incrementAndGet()) }, 4)
+
+        when:
+            waitUntil { meterRegistry.get("credentials_prefetched").gauge().value() == 4 }
+            def handedOut = (1..4).collect { generator.generate() }
+
+        then:
+            handedOut*.username() == (1..4).collect { credentials(it).username() }
+            meterRegistry.get("credentials_prefetch_miss_total").counter().count() == 0
+
+        cleanup:
+            generator?.close()
+    }
+
+    def "should generate on the calling thread when the buffer is empty"() {
+        given:
+            def blocked = new CountDownLatch(1)
+            def calls = new AtomicInteger()
+            def delegate = {
+                if (calls.incrementAndGet() == 1) {
+                    blocked.await()
+                }
+                credentials(calls.get())
+            } as UserCredentialsGenerator
+            def generator = prefetching(delegate, 4)
+
+        when:
+            waitUntil { calls.get() >= 1 }
+            def result = generator.generate()
+
+        then:
+            result.username() == credentials(2).username()
+            meterRegistry.get("credentials_prefetch_miss_total").counter().count() == 1
+
+        cleanup:
+            blocked.countDown()
+            generator?.close()
+    }
+
+    private PrefetchingUserCredentialsGenerator prefetching(UserCredentialsGenerator delegate, int capacity) {
+        return new PrefetchingUserCredentialsGenerator(delegate, capacity, meterRegistry)
+    }
+
+    private static TemporaryCredentials credentials(int number) {
+        return new TemporaryCredentials("user%08d".formatted(number), "Passw0rd!Passw0rd")
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        def deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (!condition()) {
+            assert System.nanoTime() < deadline: "Condition not met within 5 seconds"
+            Thread.sleep(10)
+        }
+    }
+}
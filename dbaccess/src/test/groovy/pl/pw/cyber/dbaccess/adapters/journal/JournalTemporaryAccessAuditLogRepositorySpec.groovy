@@ -0,0 +1,171 @@
+package pl.pw.cyber.dbaccess.adapters.journal
+
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneOffset
+
+import static java.nio.file.StandardOpenOption.APPEND
+
+class JournalTemporaryAccessAuditLogRepositorySpec extends Specification {
+
+    private static final Instant NOW = Instant.parse("2025-04-07T12:00:00Z")
+    private static final Instant LEASE_UNTIL = NOW.plusSeconds(300)
+
+    @TempDir
+    Path directory
+
+    private final List<AuditJournal> journals = []
+
+    def cleanup() {
+        journals.each { it.close() }
+    }
+
+    def "should claim expired entries in expiry order"() {
+        given:
+            def repository = openRepository()
+            [3, 1, 2].each { repository.logTemporaryAccess(entry("user${it}", NOW.minusSeconds(60 * (4 - it)))) }
+            repository.logTemporaryAccess(entry("active", NOW.plusSeconds(60)))
+
+        expect:
+            repository.claimExpired(NOW, NOW, "instance", LEASE_UNTIL, 10)*.grantedUsername() == ["user1", "user2", "user3"]
+            repository.findNotRevoked(null, 10)*.grantedUsername() == ["user1", "user2", "user3", "active"]
+    }
+
+    def "should not claim entries leased to another owner until the lease expires"() {
+        given:
+            def repository = openRepository()
+            (1..3).each { repository.logTemporaryAccess(entry("user${it}", NOW.minusSeconds(60 * it))) }
+
+        when:
+            def first = repository.claimExpired(NOW, NOW, "first", LEASE_UNTIL, 2)
+            def second = repository.claimExpired(NOW, NOW, "second", LEASE_UNTIL, 2)
+            def third = repository.claimExpired(NOW, NOW, "second", LEASE_UNTIL, 2)
+
+        then:
+            first*.grantedUsername() == ["user3", "user2"]
+            second*.grantedUsername() == ["user1"]
+            third.isEmpty()
+
+        and:
+            repository.claimExpired(LEASE_UNTIL, LEASE_UNTIL, "second", LEASE_UNTIL.plusSeconds(300), 10).size() == 3
+    }
+
+    def "should check leases against the current time when only older expiries are claimed"() {
+        given:
+            def repository = openRepository()
+            repository.logTemporaryAccess(entry("user", NOW.minusSeconds(3600)))
+            repository.claimExpired(NOW, NOW, "crashed", LEASE_UNTIL, 10)
+
+        when:
+            def claimed = repository.claimExpired(
+                    LEASE_UNTIL.minusSeconds(600), LEASE_UNTIL, "second", LEASE_UNTIL.plusSeconds(300), 10
+            )
+
+        then:
+            claimed*.grantedUsername() == ["user"]
+    }
+
+    def "should not return revoked entries"() {
+        given:
+            def repository = openRepository()
+            (1..3).each { repository.logTemporaryAccess(entry("user${it}", NOW.minusSeconds(60 * it))) }
+            def ids = repository.findNotRevoked(null, 10).findAll { it.grantedUsername() != "user2" }*.id()
+
+        when:
+            repository.markRevoked(ids, NOW)
+
+        then:
+            repository.findNotRevoked(null, 10)*.grantedUsername() == ["user2"]
+    }
+
+    def "should restore not revoked entries after a restart"() {
+        given:
+            def repository = openRepository()
+            (1..3).each { repository.logTemporaryAccess(entry("user${it}", NOW.minusSeconds(60 * it))) }
+            repository.markRevoked(repository.findNotRevoked(null, 1).first().id(), NOW)
+            restart()
+
+        expect:
+            openRepository().findNotRevoked(null, 10)*.grantedUsername() == ["user2", "user1"]
+    }
+
+    def "should ignore a record torn by a crash"() {
+        given:
+            def repository = openRepository()
+            repository.logTemporaryAccess(entry("user", NOW.minusSeconds(60)))
+            restart()
+            Files.writeString(segments().last(), '{"type":"GRANT","id":"torn","ent', APPEND)
+
+        expect:
+            openRepository().findNotRevoked(null, 10)*.grantedUsername() == ["user"]
+    }
+
+    def "should keep the same state after compaction"() {
+        given:
+            def repository = openRepository()
+            (1..3).each { repository.logTemporaryAccess(entry("user${it}", NOW.minusSeconds(60 * it))) }
+            restart()
+            repository = openRepository()
+            repository.markRevoked(repository.findNotRevoked(null, 1).first().id(), NOW)
+
+        when:
+            journals.last().compact()
+            restart()
+
+        then:
+            segments().size() == 2
+            openRepository().findNotRevoked(null, 10)*.grantedUsername() == ["user2", "user1"]
+    }
+
+    def "should drop revoked entries older than the retention during compaction"() {
+        given:
+            def repository = openRepository(Duration.ofDays(1))
+            repository.logTemporaryAccess(entry("old", NOW.minusSeconds(60)))
+            repository.logTemporaryAccess(entry("recent", NOW.minusSeconds(30)))
+            def (old, recent) = repository.findNotRevoked(null, 10)*.id()
+            repository.markRevoked(old, NOW.minus(Duration.ofDays(2)))
+            repository.markRevoked(recent, NOW)
+
+        when:
+            journals.last().compact()
+
+        then:
+            def compacted = Files.readAllLines(segments().first())
+            compacted.size() == 1
+            compacted.first().contains('"grantedUsername":"recent"')
+    }
+
+    private JournalTemporaryAccessAuditLogRepository openRepository(Duration revokedRetention = null) {
+        def journal = new AuditJournal(directory, 1024 * 1024, revokedRetention, Clock.fixed(NOW, ZoneOffset.UTC))
+        journals << journal
+        return new JournalTemporaryAccessAuditLogRepository(journal)
+    }
+
+    private void restart() {
+        journals.each { it.close() }
+        journals.clear()
+    }
+
+    private List<Path> segments() {
+        return Files.list(directory).withCloseable { it.sorted().toList() }
+    }
+
+    private static TemporaryAccessAuditLog entry(String grantedUsername, Instant expiresAt) {
+        return TemporaryAccessAuditLog.builder()
+                .withRequestedByUsername("requester")
+                .withGrantedUsername(grantedUsername)
+                .withTargetDatabase("test_db")
+                .withPermissionLevel("READ_ONLY")
+                .withGrantedAt(expiresAt.minusSeconds(600))
+                .withExpiresAt(expiresAt)
+                .withRevoked(false)
+                .build()
+    }
+}
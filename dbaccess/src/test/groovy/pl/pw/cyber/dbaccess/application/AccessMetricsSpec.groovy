@@ -0,0 +1,137 @@
+package pl.pw.cyber.dbaccess.application
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.pw.cyber.dbaccess.domain.DatabaseConfigurationProvider
+import pl.pw.cyber.dbaccess.domain.ResolvedDatabase
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.DELETE
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.READ_ONLY
+
+class AccessMetricsSpec extends Specification {
+
+    private static final List<Duration> TTL_BUCKETS = [Duration.ofMinutes(15), Duration.ofMinutes(5), Duration.ofHours(1)]
+    private static final List<Duration> LATENCY_SLOS = [Duration.ofMillis(100), Duration.ofSeconds(1)]
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def databases = new DatabaseConfigurationProvider() {
+        @Override
+        boolean isResolvable(String databaseName) {
+            return databaseName in ["prod", "added_later"]
+        }
+
+        @Override
+        ResolvedDatabase resolve(String databaseName) {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        Set<String> databaseNames() {
+            return ["prod"] as Set
+        }
+    }
+
+    def "should register counters of configured databases up front"() {
+        when:
+            new AccessMetrics(meterRegistry, databases, TTL_BUCKETS, LATENCY_SLOS, 0)
+
+        then:
+            meterRegistry.get("access_success_total").tags("database", "prod", "permission", "DELETE", "ttl", "gt_1h").counter().count() == 0
+            meterRegistry.get("revoke_failed_total").tags("database", "prod").counter().count() == 0
+    }
+
+    def "should count grants in ttl buckets"() {
+        given:
+            def metrics = new AccessMetrics(meterRegistry, databases, TTL_BUCKETS, LATENCY_SLOS, 0)
+
+        when:
+            metrics.accessGranted("prod", READ_ONLY, Duration.ofMinutes(ttl), "alice")
+
+        then:
+            meterRegistry.get("access_success_total").tags("database", "prod", "permission", "READ_ONLY", "ttl", bucket).counter().count() == 1
+
+        where:
+            ttl || bucket
+            1   || "le_5m"
+            5   || "le_5m"
+            10  || "le_15m"
+            60  || "le_1h"
+            90  || "gt_1h"
+    }
+
+    def "should count requests for databases that are not resolvable as unknown"() {
+        given:
+            def metrics = new AccessMetrics(meterRegistry, databases, TTL_BUCKETS, LATENCY_SLOS, 0)
+
+        when:
+            metrics.accessFailed("no_such_db_${UUID.randomUUID()}", DELETE, Duration.ofMinutes(10))
+            metrics.accessFailed("added_later", DELETE, Duration.ofMinutes(10))
+
+        then:
+            meterRegistry.get("access_failed_total").tags("database", AccessMetrics.UNKNOWN, "permission", "DELETE", "ttl", "le_15m").counter().count() == 1
+            meterRegistry.get("access_failed_total").tags("database", "added_later", "permission", "DELETE", "ttl", "le_15m").counter().count() == 1
+            meterRegistry.find("access_failed_total").meters()*.id*.getTag("database").toSet() == ["prod", "added_later", AccessMetrics.UNKNOWN] as Set
+    }
+
+    def "should keep database of revoked grants"() {
+        given:
+            def metrics = new AccessMetrics(meterRegistry, databases, TTL_BUCKETS, LATENCY_SLOS, 0)
+
+        when:
+            metrics.revoked("removed_db", "READ_ONLY")
+            metrics.revoked("removed_db", "SOMETHING_ELSE")
+            metrics.revokeFailed("removed_db")
+
+        then:
+            meterRegistry.get("revoke_success_total").tags("database", "removed_db", "permission", "READ_ONLY").counter().count() == 1
+            meterRegistry.get("revoke_success_total").tags("database", "removed_db", "permission", AccessMetrics.UNKNOWN).counter().count() == 1
+            meterRegistry.get("revoke_failed_total").tags("database", "removed_db").counter().count() == 1
+    }
+
+    def "should time pipeline stages per database with slo buckets"() {
+        given:
+            def metrics = new AccessMetrics(meterRegistry, databases, TTL_BUCKETS, LATENCY_SLOS, 0)
+
+        when:
+            metrics.stageTimer(AccessMetrics.Stage.CREATE_USER, "prod").record(Duration.ofMillis(50))
+            metrics.stageTimer(AccessMetrics.Stage.CREATE_USER, "no_such_db").record(Duration.ofMillis(500))
+            metrics.stageTimer(AccessMetrics.Stage.REVOKE, "removed_db").record(Duration.ofMillis(5))
+
+        then:
+            def createUser = meterRegistry.get("access_stage_duration").tags("database", "prod", "stage", "create_user").timer()
+            createUser.count() == 1
+            createUser.takeSnapshot().histogramCounts()*.bucket(TimeUnit.MILLISECONDS).containsAll([100d, 1000d])
+            meterRegistry.get("access_stage_duration").tags("database", AccessMetrics.UNKNOWN, "stage", "create_user").timer().count() == 1
+            meterRegistry.get("access_stage_duration").tags("database", "removed_db", "stage", "revoke").timer().count() == 1
+    }
+
+    def "should not tag by principal unless top principals are enabled"() {
+        given:
+            def metrics = new AccessMetrics(meterRegistry, databases, TTL_BUCKETS, LATENCY_SLOS, 0)
+
+        when:
+            metrics.accessGranted("prod", READ_ONLY, Duration.ofMinutes(10), "alice")
+
+        then:
+            meterRegistry.meters.every { it.id.getTag("requestedBy") == null }
+    }
+
+    def "should expose only the most active principals"() {
+        given:
+            def metrics = new AccessMetrics(meterRegistry, databases, TTL_BUCKETS, LATENCY_SLOS, 2)
+
+        when:
+            3.times { metrics.accessGranted("prod", READ_ONLY, Duration.ofMinutes(10), "alice") }
+            2.times { metrics.accessGranted("prod", READ_ONLY, Duration.ofMinutes(10), "bob") }
+            metrics.accessGranted("prod", READ_ONLY, Duration.ofMinutes(10), "carol")
+
+        then:
+            def gauges = meterRegistry.find("access_top_principal_grants").gauges()
+            gauges*.id*.getTag("requestedBy").toSet() == ["alice", "carol"] as Set
+            meterRegistry.get("access_top_principal_grants").tag("requestedBy", "alice").gauge().value() == 3
+            meterRegistry.get("access_top_principal_grants").tag("requestedBy", "carol").gauge().value() == 3
+    }
+}
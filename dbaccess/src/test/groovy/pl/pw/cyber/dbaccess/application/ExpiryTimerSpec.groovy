@@ -0,0 +1,67 @@
+package pl.pw.cyber.dbaccess.application
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+
+class ExpiryTimerSpec extends Specification {
+
+    private static final Instant NOW = Instant.parse("2025-04-07T12:00:00Z")
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def timer = new ExpiryTimer(meterRegistry)
+
+    def "should report nothing due when no expirations are registered"() {
+        expect:
+            !timer.pollDue(NOW)
+    }
+
+    def "should report expiration only once it is due"() {
+        given:
+            timer.register(NOW.plusSeconds(30))
+
+        expect:
+            !timer.pollDue(NOW)
+            !timer.pollDue(NOW.plusSeconds(29))
+            timer.pollDue(NOW.plusSeconds(30))
+            !timer.pollDue(NOW.plusSeconds(31))
+    }
+
+    def "should round sub-second expirations up to the next second"() {
+        given:
+            timer.register(NOW.plusMillis(1500))
+
+        expect:
+            !timer.pollDue(NOW.plusSeconds(1))
+            timer.pollDue(NOW.plusSeconds(2))
+    }
+
+    def "should drain all due slots and keep future ones"() {
+        given:
+            timer.register(NOW.minusSeconds(10))
+            timer.register(NOW)
+            timer.register(NOW)
+            timer.register(NOW.plusSeconds(60))
+
+        when:
+            def due = timer.pollDue(NOW)
+
+        then:
+            due
+            meterRegistry.get("revoke_pending_expirations").gauge().value() == 1
+    }
+
+    def "should group expirations into slots of the configured resolution"() {
+        given:
+            def coarseTimer = new ExpiryTimer(new SimpleMeterRegistry(), Duration.ofMinutes(5))
+            coarseTimer.register(NOW.plusSeconds(10))
+            coarseTimer.register(NOW.plusSeconds(250))
+
+        expect:
+            !coarseTimer.pollDue(NOW.plusSeconds(299))
+            coarseTimer.pollDue(NOW.plusSeconds(300))
+            !coarseTimer.pollDue(NOW.plusSeconds(600))
+    }
+}
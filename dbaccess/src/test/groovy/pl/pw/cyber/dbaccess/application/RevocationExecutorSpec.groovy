@@ -0,0 +1,107 @@
+package pl.pw.cyber.dbaccess.application
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+import static pl.pw.cyber.dbaccess.testing.dsl.builders.TemporaryAccessAuditLogBuilder.anExpiredAuditLog
+
+class RevocationExecutorSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def executor = new RevocationExecutor(4, 2, meterRegistry)
+
+    def cleanup() {
+        executor.close()
+    }
+
+    def "should revoke every entry before returning"() {
+        given:
+            def entries = (1..50).collect { anExpiredAuditLog().withGrantedUsername("user$it").build() }
+            def revoked = ConcurrentHashMap.newKeySet()
+
+        when:
+            executor.revokeInBatches(entries, 3) { revoked.addAll(it*.grantedUsername()) }
+
+        then:
+            revoked.size() == 50
+            meterRegistry.get("revoke_backlog").gauge().value() == 0
+    }
+
+    def "should not exceed per-database concurrency"() {
+        given:
+            def entries = (1..20).collect { anExpiredAuditLog().withTargetDatabase("db${it % 2}").build() }
+            def running = [db0: new AtomicInteger(), db1: new AtomicInteger()]
+            def maxRunning = [db0: new AtomicInteger(), db1: new AtomicInteger()]
+
+        when:
+            executor.revokeInBatches(entries, 1) { List<TemporaryAccessAuditLog> batch ->
+                def database = batch.first().targetDatabase()
+                def current = running[database].incrementAndGet()
+                maxRunning[database].accumulateAndGet(current, { a, b -> Math.max(a, b) })
+                Thread.sleep(10)
+                running[database].decrementAndGet()
+            }
+
+        then:
+            maxRunning.values().every { it.get() <= 2 }
+    }
+
+    def "should isolate failures of single entries revoked in batches of one"() {
+        given:
+            def entries = (1..10).collect { anExpiredAuditLog().withGrantedUsername("user$it").build() }
+            def revoked = new AtomicInteger()
+
+        when:
+            executor.revokeInBatches(entries, 1) {
+                if (it.first().grantedUsername() == "user5") {
+                    throw new IllegalStateException("boom")
+                }
+                revoked.incrementAndGet()
+            }
+
+        then:
+            noExceptionThrown()
+            revoked.get() == 9
+    }
+
+    def "should revoke entries in batches of a single database"() {
+        given:
+            def entries = (1..25).collect {
+                anExpiredAuditLog().withGrantedUsername("user$it").withTargetDatabase("db${it % 2}").build()
+            }
+            def batches = new CopyOnWriteArrayList<List<TemporaryAccessAuditLog>>()
+
+        when:
+            executor.revokeInBatches(entries, 5) { batches.add(it) }
+
+        then:
+            batches.sum { it.size() } == 25
+            batches.every { it.size() <= 5 }
+            batches.every { batch -> batch*.targetDatabase().unique().size() == 1 }
+            batches.size() == 6
+            meterRegistry.get("revoke_backlog").gauge().value() == 0
+    }
+
+    def "should isolate failures of single batches"() {
+        given:
+            def entries = (1..4).collect { anExpiredAuditLog().withTargetDatabase("db$it").build() }
+            def revoked = new AtomicInteger()
+
+        when:
+            executor.revokeInBatches(entries, 10) {
+                if (it.first().targetDatabase() == "db2") {
+                    throw new IllegalStateException("boom")
+                }
+                revoked.incrementAndGet()
+            }
+
+        then:
+            noExceptionThrown()
+            revoked.get() == 3
+    }
+}
@@ -35,4 +35,22 @@ class SchedulerConfigSpec extends Specification {
         then:
             1 * service.revokeExpiredAccess()
     }
+
+    def "should run due revocations on tick and rehydrate expiry timer on startup"() {
+        given:
+            def service = Mock(TemporaryDbAccessService)
+            def scheduler = new SchedulerConfig().revokeScheduler(service)
+
+        when:
+            scheduler.revokeDueAccess()
+
+        then:
+            1 * service.revokeDueAccess()
+
+        when:
+            scheduler.rehydrate()
+
+        then:
+            1 * service.rehydrateExpiryTimer()
+    }
 }
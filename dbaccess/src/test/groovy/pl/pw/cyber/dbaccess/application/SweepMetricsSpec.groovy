@@ -0,0 +1,80 @@
+package pl.pw.cyber.dbaccess.application
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.pw.cyber.dbaccess.domain.TemporaryAccessAuditLog
+import spock.lang.Specification
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+
+class SweepMetricsSpec extends Specification {
+
+    private static final Instant NOW = Instant.parse("2025-04-07T12:00:00Z")
+    private static final Instant LEASED_UNTIL = NOW.plusSeconds(300)
+
+    def meterRegistry = new SimpleMeterRegistry()
+    def now = NOW
+    def clock = Stub(Clock) {
+        instant() >> { now }
+    }
+    def metrics = new SweepMetrics(meterRegistry, clock)
+
+    def "should report no overdue grants before any sweep"() {
+        expect:
+            oldestOverdue() == 0
+    }
+
+    def "should report age of the earliest claimed entry"() {
+        when:
+            metrics.claimed([expiredAt("a", NOW.minusSeconds(30)), expiredAt("b", NOW.minusSeconds(90))], LEASED_UNTIL)
+
+        then:
+            oldestOverdue() == 90
+    }
+
+    def "should stop reporting entries once revoked"() {
+        given:
+            metrics.claimed([expiredAt("a", NOW.minusSeconds(30)), expiredAt("b", NOW.minusSeconds(90))], LEASED_UNTIL)
+
+        when:
+            metrics.revoked(["b"])
+
+        then:
+            oldestOverdue() == 30
+    }
+
+    def "should keep reporting entries that failed to revoke until their lease runs out"() {
+        given:
+            metrics.claimed([expiredAt("a", NOW.minusSeconds(30))], LEASED_UNTIL)
+
+        expect:
+            oldestOverdue() == 30
+
+        when:
+            now = LEASED_UNTIL
+
+        then:
+            oldestOverdue() == 0
+    }
+
+    def "should publish histograms of sweep phases"() {
+        when:
+            metrics.claim().record(Duration.ofMillis(20))
+
+        then:
+            meterRegistry.get("revoke_sweep_claim_duration").timer().count() == 1
+            meterRegistry.get("revoke_sweep_claim_duration").timer().takeSnapshot().histogramCounts().length > 0
+    }
+
+    private double oldestOverdue() {
+        return meterRegistry.get("revoke_oldest_overdue_seconds").gauge().value()
+    }
+
+    private static TemporaryAccessAuditLog expiredAt(String id, Instant expiresAt) {
+        return TemporaryAccessAuditLog.builder()
+                .withId(id)
+                .withExpiresAt(expiresAt)
+                .build()
+    }
+}
@@ -0,0 +1,45 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security
+
+import jakarta.servlet.ReadListener
+import jakarta.servlet.ServletInputStream
+import jakarta.servlet.http.HttpServletRequest
+import spock.lang.Specification
+
+class CachedBodyHttpServletRequestSpec extends Specification {
+
+    def "should serve the cached body to a non-blocking reader"() {
+        given:
+            def request = CachedBodyHttpServletRequest.read(requestWithBody("body"), 16).orElseThrow()
+            def input = request.getInputStream()
+            def listener = Mock(ReadListener)
+            String read = null
+
+        when:
+            input.setReadListener(listener)
+
+        then:
+            1 * listener.onDataAvailable() >> { read = new String(input.readAllBytes(), "UTF-8") }
+        then:
+            1 * listener.onAllDataRead()
+            0 * listener.onError(_)
+            read == "body"
+    }
+
+    def "should not cache a body longer than the limit"() {
+        expect:
+            CachedBodyHttpServletRequest.read(requestWithBody("x" * 17), 16).isEmpty()
+    }
+
+    private HttpServletRequest requestWithBody(String body) {
+        def bytes = new ByteArrayInputStream(body.getBytes("UTF-8"))
+        return Stub(HttpServletRequest) {
+            getContentLengthLong() >> -1L
+            getInputStream() >> new ServletInputStream() {
+                int read() { bytes.read() }
+                boolean isFinished() { bytes.available() == 0 }
+                boolean isReady() { true }
+                void setReadListener(ReadListener listener) {}
+            }
+        }
+    }
+}
@@ -23,7 +23,7 @@ class JwtTokenConfigSpec extends Specification implements GenerateKeysAbility {
             def config = new JwtTokenConfig()
 
         when:
-            def verifier = config.jwtTokenVerifier(Clock.systemUTC(), props, meterRegistry)
+            def verifier = config.jwtTokenVerifier(Clock.systemUTC(), props, new JwtVerifierProperties(100), meterRegistry)
 
         then:
             verifier != null
@@ -40,7 +40,7 @@ class JwtTokenConfigSpec extends Specification implements GenerateKeysAbility {
             def config = new JwtTokenConfig()
 
         when:
-            config.jwtTokenVerifier(Clock.systemUTC(), props, meterRegistry)
+            config.jwtTokenVerifier(Clock.systemUTC(), props, new JwtVerifierProperties(100), meterRegistry)
 
         then:
             def ex = thrown(InvalidKeySpecException)
@@ -54,7 +54,7 @@ class JwtTokenConfigSpec extends Specification implements GenerateKeysAbility {
             def config = new JwtTokenConfig()
 
         when:
-            config.jwtTokenVerifier(Clock.systemUTC(), props, meterRegistry)
+            config.jwtTokenVerifier(Clock.systemUTC(), props, new JwtVerifierProperties(100), meterRegistry)
 
         then:
             def ex = thrown(InvalidKeySpecException)
@@ -69,7 +69,7 @@ class JwtTokenConfigSpec extends Specification implements GenerateKeysAbility {
             def config = new JwtTokenConfig()
 
         when:
-            config.jwtTokenVerifier(Clock.systemUTC(), props, meterRegistry)
+            config.jwtTokenVerifier(Clock.systemUTC(), props, new JwtVerifierProperties(100), meterRegistry)
 
         then:
             def ex = thrown(InvalidKeySpecException)
@@ -24,11 +24,12 @@ class JwtTokenVerifierSpec extends Specification implements GenerateKeysAbility
     private ECPrivateKey privateKey
     private static MovableClock CLOCK = new MovableClock(Instant.parse("2025-04-07T12:00:00Z"), ZoneId.of("UTC"))
     private TestJwtTokenGenerator tokenGenerator
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
 
     def setup() {
         def keyPair = generateECKeyPair()
         privateKey = keyPair.private as ECPrivateKey
-        verifier = new JwtTokenVerifier(CLOCK, keyPair.public as ECPublicKey, new SimpleMeterRegistry())
+        verifier = new JwtTokenVerifier(CLOCK, keyPair.public as ECPublicKey, meterRegistry)
         tokenGenerator = new TestJwtTokenGenerator(privateKey)
     }
 
@@ -169,4 +170,69 @@ class JwtTokenVerifierSpec extends Specification implements GenerateKeysAbility
             def ex = thrown(SecurityException)
             ex.message == "Invalid audience"
     }
-}
\ No newline at end of file
+
+    def "should serve a repeated token from the verified token cache"() {
+        given:
+            def token = tokenGenerator.generateToken(aToken()
+                    .withSubject("alice")
+                    .withIssueTime(CLOCK.instant())
+                    .withTtl(Duration.ofMinutes(5))
+            )
+
+        when:
+            def first = verifier.verify(token)
+            def second = verifier.verify(token)
+
+        then:
+            first.subject == "alice"
+            second.subject == "alice"
+            cacheGets("miss") == 1
+            cacheGets("hit") == 1
+    }
+
+    def "should reject a cached token once it expires"() {
+        given:
+            def token = tokenGenerator.generateToken(aToken()
+                    .withSubject("alice")
+                    .withIssueTime(CLOCK.instant())
+                    .withTtl(Duration.ofMinutes(5))
+            )
+            verifier.verify(token)
+
+        when:
+            CLOCK.moveForward(Duration.ofMinutes(6))
+            verifier.verify(token)
+
+        then:
+            def ex = thrown(SecurityException)
+            ex.message == "Token expired"
+
+        cleanup:
+            CLOCK.moveBackward(Duration.ofMinutes(6))
+    }
+
+    def "should not cache tokens that failed verification"() {
+        given:
+            def attackerKeys = generateECKeyPair()
+            def token = new TestJwtTokenGenerator(attackerKeys.private as ECPrivateKey).generateToken(aToken()
+                    .withSubject("eve")
+                    .withIssueTime(CLOCK.instant())
+            )
+
+        when:
+            2.times {
+                try {
+                    verifier.verify(token)
+                } catch (SecurityException ignored) {
+                }
+            }
+
+        then:
+            cacheGets("hit") == 0
+            meterRegistry.get("jwt_invalid_signature_total").counter().count() == 2
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "jwt_verified_tokens").tag("result", result).functionCounter().count()
+    }
+}
@@ -0,0 +1,118 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.DELETE
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.READ_ONLY
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.READ_WRITE
+
+class RateLimitPoliciesSpec extends Specification {
+
+    private static final RateLimitProperties.Policy AUTOMATION = new RateLimitProperties.Policy(
+            "automation", ["ci-bot"], [], [], 100, Duration.ofMinutes(1)
+    )
+    private static final RateLimitProperties.Policy PRODUCTION_DELETE = new RateLimitProperties.Policy(
+            "production-delete", [], ["prod"], [DELETE], 10, Duration.ofHours(1)
+    )
+
+    def "should fall back to the default policy when nothing matches"() {
+        given:
+            def policies = policies([AUTOMATION, PRODUCTION_DELETE])
+
+        when:
+            def policy = policies.resolve("alice", "test_db", READ_ONLY)
+
+        then:
+            policy.name() == RateLimitPolicies.DEFAULT_POLICY
+            policy.bandwidth().capacity == 5
+            policy.refillPeriod() == Duration.ofMinutes(5)
+    }
+
+    def "should resolve policy of a principal"() {
+        expect:
+            policies([AUTOMATION]).resolve("ci-bot", "test_db", READ_WRITE).name() == "automation"
+    }
+
+    def "should prefer the policy restricted on more dimensions"() {
+        given:
+            def policies = policies([AUTOMATION, PRODUCTION_DELETE])
+
+        expect:
+            policies.resolve("ci-bot", "prod", DELETE).name() == "production-delete"
+            policies.resolve("ci-bot", "prod", READ_ONLY).name() == "automation"
+            policies.resolve("alice", "prod", DELETE).name() == "production-delete"
+    }
+
+    def "should prefer the policy declared first among equally specific ones"() {
+        given:
+            def first = new RateLimitProperties.Policy("first", ["ci-bot"], [], [], 10, Duration.ofMinutes(1))
+            def second = new RateLimitProperties.Policy("second", ["ci-bot"], [], [], 20, Duration.ofMinutes(1))
+
+        expect:
+            policies([first, second]).resolve("ci-bot", "test_db", READ_ONLY).name() == "first"
+    }
+
+    def "should match only wildcard policies when the target is unknown"() {
+        given:
+            def policies = policies([AUTOMATION, PRODUCTION_DELETE])
+
+        expect:
+            policies.resolve("ci-bot", null, null).name() == "automation"
+            policies.resolve("alice", null, DELETE).name() == RateLimitPolicies.DEFAULT_POLICY
+    }
+
+    def "should resolve the strictest policy a principal could fall under when the target is unknown"() {
+        expect:
+            policies([AUTOMATION, PRODUCTION_DELETE]).resolveUnknownTarget("alice").name() == "production-delete"
+            policies([AUTOMATION, PRODUCTION_DELETE]).resolveUnknownTarget("ci-bot").name() == "production-delete"
+            policies([AUTOMATION]).resolveUnknownTarget("ci-bot").name() == RateLimitPolicies.DEFAULT_POLICY
+    }
+
+    def "should prefer a stricter policy of the principal over shared ones when the target is unknown"() {
+        given:
+            def throttled = new RateLimitProperties.Policy("throttled", ["ci-bot"], [], [], 1, Duration.ofHours(1))
+
+        expect:
+            policies([throttled, PRODUCTION_DELETE]).resolveUnknownTarget("ci-bot").name() == "throttled"
+            policies([throttled, PRODUCTION_DELETE]).resolveUnknownTarget("alice").name() == "production-delete"
+    }
+
+    def "should weigh requests by permission level"() {
+        given:
+            def policies = policies([], [(DELETE): 5L])
+
+        expect:
+            policies.cost(DELETE) == 5
+            policies.cost(READ_ONLY) == 1
+            policies.cost(null) == 1
+            policies.highestCost() == 5
+    }
+
+    def "should reject a policy that cannot fit the most expensive request"() {
+        when:
+            policies([new RateLimitProperties.Policy("tiny", ["ci-bot"], [], [], 2, Duration.ofMinutes(1))], [(DELETE): 3L])
+
+        then:
+            def e = thrown(IllegalArgumentException)
+            e.message.contains("tiny")
+    }
+
+    def "should reject a policy without restrictions"() {
+        when:
+            policies([new RateLimitProperties.Policy("everyone", [], [], [], 10, Duration.ofMinutes(1))])
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    private static RateLimitPolicies policies(List<RateLimitProperties.Policy> policies, Map costs = [:]) {
+        return new RateLimitPolicies(new RateLimitProperties(
+                100, RateLimitProperties.Store.LOCAL, 1, Duration.ofSeconds(1),
+                new RateLimitProperties.Limit(5, Duration.ofMinutes(5)),
+                policies,
+                costs
+        ))
+    }
+}
@@ -0,0 +1,116 @@
+package pl.pw.cyber.dbaccess.infrastructure.spring.security
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import jakarta.servlet.FilterChain
+import jakarta.servlet.ReadListener
+import jakarta.servlet.ServletInputStream
+import jakarta.servlet.http.HttpServletRequest
+import jakarta.servlet.http.HttpServletResponse
+import org.springframework.security.core.context.SecurityContextHolder
+import spock.lang.Specification
+
+import java.time.Duration
+
+import static pl.pw.cyber.dbaccess.domain.PermissionLevel.DELETE
+
+class RateLimitingFilterSpec extends Specification {
+
+    private static final RateLimitProperties.Policy PRODUCTION_DELETE = new RateLimitProperties.Policy(
+            "production-delete", [], ["prod"], [DELETE], 10, Duration.ofHours(1)
+    )
+
+    def rateLimiter = Mock(RateLimiter)
+    def policies = new RateLimitPolicies(new RateLimitProperties(
+            100, RateLimitProperties.Store.LOCAL, 1, Duration.ofSeconds(1),
+            new RateLimitProperties.Limit(5, Duration.ofMinutes(5)),
+            [PRODUCTION_DELETE],
+            [(DELETE): 3L]
+    ))
+    def filter = new RateLimitingFilter(rateLimiter, policies, new SimpleMeterRegistry(), new ObjectMapper())
+    def response = Mock(HttpServletResponse) {
+        getWriter() >> new PrintWriter(new StringWriter())
+    }
+    def chain = Mock(FilterChain)
+
+    def setup() {
+        SecurityContextHolder.context.authentication = new JwtAuthenticationToken("alice", "token", [])
+    }
+
+    def cleanup() {
+        SecurityContextHolder.clearContext()
+    }
+
+    def "should charge a request under the policy of its database and permission level"() {
+        when:
+            filter.doFilterInternal(requestWithBody('{"targetDatabase":"prod","permissionLevel":"DELETE"}'), response, chain)
+
+        then:
+            1 * rateLimiter.tryConsume(new BucketKey(policies.resolve("alice", "prod", DELETE), "alice"), 3) >> true
+            1 * chain.doFilter(_, response)
+    }
+
+    def "should reject a padded DELETE body before it reaches the endpoint"() {
+        given:
+            def padding = " " * RateLimitingFilter.MAX_BODY_BYTES
+
+        when:
+            filter.doFilterInternal(
+                    requestWithBody('{"targetDatabase":"prod",' + padding + '"permissionLevel":"DELETE"}'), response, chain
+            )
+
+        then:
+            1 * response.setStatus(413)
+            0 * rateLimiter._
+            0 * chain._
+    }
+
+    def "should reject a body whose declared length is over the limit without reading it"() {
+        given:
+            def request = Mock(HttpServletRequest) {
+                getContentLengthLong() >> RateLimitingFilter.MAX_BODY_BYTES + 1
+            }
+
+        when:
+            filter.doFilterInternal(request, response, chain)
+
+        then:
+            1 * response.setStatus(413)
+            0 * request.getInputStream()
+            0 * chain._
+    }
+
+    def "should charge a body that cannot be parsed under the strictest policy at the highest cost"() {
+        when:
+            filter.doFilterInternal(requestWithBody('{"targetDatabase":"prod","permissionLevel":'), response, chain)
+
+        then:
+            1 * rateLimiter.tryConsume(new BucketKey(policies.resolveUnknownTarget("alice"), "alice"), 3) >> true
+            policies.resolveUnknownTarget("alice").name() == "production-delete"
+    }
+
+    def "should reject a request when its bucket is empty"() {
+        given:
+            rateLimiter.tryConsume(_, _) >> false
+
+        when:
+            filter.doFilterInternal(requestWithBody('{"targetDatabase":"prod","permissionLevel":"DELETE"}'), response, chain)
+
+        then:
+            1 * response.setStatus(429)
+            0 * chain._
+    }
+
+    private HttpServletRequest requestWithBody(String body) {
+        def bytes = new ByteArrayInputStream(body.getBytes("UTF-8"))
+        return Stub(HttpServletRequest) {
+            getContentLengthLong() >> -1L
+            getInputStream() >> new ServletInputStream() {
+                int read() { bytes.read() }
+                boolean isFinished() { bytes.available() == 0 }
+                boolean isReady() { true }
+                void setReadListener(ReadListener listener) {}
+            }
+        }
+    }
+}